@@ -0,0 +1,22 @@
+package study.datajpa.analytics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.analytics")
+public class AnalyticsProperties {
+
+    /**
+     * 집계 fork-join 풀 크기. 0 이면 CPU 수
+     */
+    private int parallelism;
+
+    /**
+     * 스냅샷 적재 시 JDBC fetch size
+     */
+    private int fetchSize = 10_000;
+}
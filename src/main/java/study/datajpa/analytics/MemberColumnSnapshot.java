@@ -0,0 +1,610 @@
+package study.datajpa.analytics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeBatch;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.event.EntityChangeListener;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Member(id, age, team_id) 의 메모리 컬럼 스냅샷. 나이 분포/팀별 나이 분포/나이 이상 회원 수를 DB 를 보지 않고 답한다.
+ * <p>
+ * id 순으로 정렬된 long[] id, int[] age, int[] team(팀 id 사전의 인덱스, 없으면 -1) 을 기본으로 두고,
+ * 커밋된 변경(EntityChangeListener)은 바뀐 회원만 DB 에서 다시 읽어 작은 overlay(id -> row)에 쌓았다가
+ * 일정 크기가 되면 배열로 합친다. id 로 지운 회원은 읽지 않고 overlay 에 삭제 표시(tombstone)만 한다.
+ * 벌크 수정은 id 를 알면(upsert, stateless 수정) 그 회원만, bulkAgePlus 는 나이가 오른 회원만 다시 읽고,
+ * age/team 을 바꾸지 않는 벌크 수정은 건너뛴다. 어떤 row 인지 알 수 없는 벌크 변경만 전체를 다시 적재한다.
+ * 다시 읽기와 반영은 재구성과 같은 락 안에서 하므로 읽는 사이 재구성된 기본 배열을 덮어쓰지 않는다.
+ * 집계는 기본 배열을 fork-join 으로 나눠 구간별 누적 배열을 만들어 합치고, overlay 만큼 빼고 더해 보정한다.
+ * 안쪽 루프는 분기 없는 원시 배열 순회라 JIT 가 펼치거나 벡터화할 수 있다.
+ */
+@Slf4j
+@Component
+public class MemberColumnSnapshot implements EntityChangeListener, DisposableBean {
+
+    private static final int MIN_LEAF_SIZE = 1 << 16;
+    private static final int MIN_COMPACT_THRESHOLD = 4096;
+    private static final int MAX_CROSS_TAB_CELLS = 1 << 20;
+    private static final int READ_CHUNK_SIZE = 1000;
+    private static final String LOAD_SQL = "select member_id, age, team_id from member order by member_id";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsProperties properties;
+    private final ForkJoinPool pool;
+    private final Timer rebuildTimer;
+    private final MeterRegistry meterRegistry;
+
+    private volatile State state = new State(Columns.EMPTY, Collections.emptyMap());
+
+    public MemberColumnSnapshot(EntityManager em, PlatformTransactionManager transactionManager,
+                                AnalyticsProperties properties, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.getParallelism() > 0
+                ? properties.getParallelism() : Runtime.getRuntime().availableProcessors());
+        this.meterRegistry = meterRegistry;
+        this.rebuildTimer = meterRegistry.timer("datajpa.analytics.rebuild");
+        meterRegistry.gauge("datajpa.analytics.rows", this, s -> s.state.base.size);
+        meterRegistry.gauge("datajpa.analytics.overlay", this, s -> s.state.overlay.size());
+    }
+
+    /**
+     * 나이가 age 이상인 회원 수 (bulkAgePlus 의 조건)
+     */
+    public long countAgeAtLeast(int age) {
+        return timed("count-age-at-least", () -> {
+            State current = state;
+            Columns base = current.base;
+            long count = aggregate(base.size, () -> new long[1], (acc, from, to) -> {
+                int[] ages = base.ages;
+                long n = 0;
+                for (int i = from; i < to; i++) {
+                    n += ages[i] >= age ? 1 : 0;
+                }
+                acc[0] += n;
+            }, MemberColumnSnapshot::sum)[0];
+
+            for (Row row : current.overlay.values()) {
+                if (row.baseIndex >= 0 && base.ages[row.baseIndex] >= age) {
+                    count--;
+                }
+                if (!row.deleted && row.age >= age) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 나이 구간(bucketWidth 단위, 구간 시작 나이) -> 회원 수
+     */
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        checkBucketWidth(bucketWidth);
+        return timed("age-histogram", () -> {
+            State current = state;
+            Columns base = current.base;
+            Buckets buckets = new Buckets(base, bucketWidth);
+            long[] counts = aggregate(base.size, () -> new long[buckets.count], (acc, from, to) -> {
+                int[] ages = base.ages;
+                for (int i = from; i < to; i++) {
+                    acc[buckets.index(ages[i])]++;
+                }
+            }, MemberColumnSnapshot::sum);
+
+            SortedMap<Integer, Long> result = new TreeMap<>();
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] != 0) {
+                    result.put(buckets.start(b), counts[b]);
+                }
+            }
+            for (Row row : current.overlay.values()) {
+                if (row.baseIndex >= 0) {
+                    adjust(result, bucketStart(base.ages[row.baseIndex], bucketWidth), -1);
+                }
+                if (!row.deleted) {
+                    adjust(result, bucketStart(row.age, bucketWidth), 1);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 팀 id -> (나이 구간 -> 회원 수). 팀이 없는 회원은 세지 않는다.
+     */
+    public SortedMap<Long, SortedMap<Integer, Long>> teamAgeCrossTab(int bucketWidth) {
+        checkBucketWidth(bucketWidth);
+        return timed("team-age-cross-tab", () -> {
+            State current = state;
+            Columns base = current.base;
+            Buckets buckets = new Buckets(base, bucketWidth);
+            int teams = base.teamIds.length;
+            if ((long) teams * buckets.count > MAX_CROSS_TAB_CELLS) {
+                throw new IllegalArgumentException("too many cells. teams=" + teams + " buckets=" + buckets.count
+                        + ", use a wider bucket");
+            }
+            long[] cells = aggregate(base.size, () -> new long[teams * buckets.count], (acc, from, to) -> {
+                int[] ages = base.ages;
+                int[] teamIndexes = base.teams;
+                int bucketCount = buckets.count;
+                for (int i = from; i < to; i++) {
+                    int team = teamIndexes[i];
+                    if (team >= 0) {
+                        acc[team * bucketCount + buckets.index(ages[i])]++;
+                    }
+                }
+            }, MemberColumnSnapshot::sum);
+
+            SortedMap<Long, SortedMap<Integer, Long>> result = new TreeMap<>();
+            for (int t = 0; t < teams; t++) {
+                for (int b = 0; b < buckets.count; b++) {
+                    long count = cells[t * buckets.count + b];
+                    if (count != 0) {
+                        result.computeIfAbsent(base.teamIds[t], id -> new TreeMap<>()).put(buckets.start(b), count);
+                    }
+                }
+            }
+            for (Row row : current.overlay.values()) {
+                if (row.baseIndex >= 0 && base.teams[row.baseIndex] >= 0) {
+                    adjust(result, base.teamIds[base.teams[row.baseIndex]], bucketStart(base.ages[row.baseIndex], bucketWidth), -1);
+                }
+                if (!row.deleted && row.teamId != null) {
+                    adjust(result, row.teamId, bucketStart(row.age, bucketWidth), 1);
+                }
+            }
+            return result;
+        });
+    }
+
+    public int size() {
+        State current = state;
+        int size = current.base.size;
+        for (Row row : current.overlay.values()) {
+            if (row.baseIndex < 0) {
+                size++;
+            } else if (row.deleted) {
+                size--;
+            }
+        }
+        return size;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${datajpa.analytics.rebuild-cron:-}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            Columns columns = transactionTemplate.execute(status -> em.unwrap(Session.class).doReturningWork(this::load));
+            state = new State(columns, Collections.emptyMap());
+        }
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("member column snapshot rebuilt. rows={} teams={} elapsedMillis={}",
+                state.base.size, state.base.teamIds.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onMissedChanges() {
+        rebuild();
+    }
+
+    @Override
+    public synchronized void onChanges(EntityChangeBatch batch) {
+        Set<Long> changed = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        Integer agedFrom = null;
+        for (EntityChangeEvent event : batch.getEvents()) {
+            if (event.getEntityType() != Member.class) {
+                continue;
+            }
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    deleted.remove((Long) event.getId());
+                    changed.add((Long) event.getId());
+                    break;
+                case DELETE:
+                    changed.remove((Long) event.getId());
+                    deleted.add((Long) event.getId());
+                    break;
+                case BULK_UPDATE:
+                    if (event.getIds() != null) {
+                        for (Object id : event.getIds()) {
+                            deleted.remove((Long) id);
+                            changed.add((Long) id);
+                        }
+                    } else if (isBulkAgePlus(event)) {
+                        int age = (Integer) event.getParameters().get("age");
+                        agedFrom = agedFrom == null ? age : Math.min(agedFrom, age);
+                    } else if (event.mayAssign("age") || event.mayAssign("team")) {
+                        rebuild();
+                        return;
+                    }
+                    break;
+                case BULK_DELETE:
+                    rebuild();
+                    return;
+            }
+        }
+        if (changed.isEmpty() && deleted.isEmpty() && agedFrom == null) {
+            return;
+        }
+
+        //나이가 오른 회원은 지금 나이가 agedFrom 보다 크다. 그 뒤 다시 바뀐 회원은 뒤따르는 이벤트로 다시 읽힌다.
+        Integer minAged = agedFrom;
+        List<Object[]> rows = changed.isEmpty() && minAged == null ? List.of() : transactionTemplate.execute(status -> {
+            List<Object[]> loaded = new ArrayList<>();
+            if (minAged != null) {
+                loaded.addAll(em.createQuery(
+                        "select m.id, m.age, t.id from Member m left join m.team t where m.age > :age", Object[].class)
+                        .setParameter("age", minAged)
+                        .getResultList());
+            }
+            List<Long> ids = new ArrayList<>(changed);
+            for (int from = 0; from < ids.size(); from += READ_CHUNK_SIZE) {
+                loaded.addAll(em.createQuery(
+                        "select m.id, m.age, t.id from Member m left join m.team t where m.id in :ids", Object[].class)
+                        .setParameter("ids", ids.subList(from, Math.min(from + READ_CHUNK_SIZE, ids.size())))
+                        .getResultList());
+            }
+            return loaded;
+        });
+
+        State current = state;
+        Map<Long, Row> overlay = new HashMap<>(current.overlay);
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            changed.remove(id);
+            overlay.put(id, new Row(baseIndex(current, id), false, (Integer) row[1], (Long) row[2]));
+        }
+        //다시 읽을 때 이미 지워진 회원
+        deleted.addAll(changed);
+        for (Long id : deleted) {
+            int baseIndex = baseIndex(current, id);
+            if (baseIndex >= 0) {
+                overlay.put(id, new Row(baseIndex, true, 0, null));
+            } else {
+                overlay.remove(id);
+            }
+        }
+        state = overlay.size() > compactThreshold(current.base)
+                ? new State(compact(current.base, overlay), Collections.emptyMap())
+                : new State(current.base, Collections.unmodifiableMap(overlay));
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private Columns load(Connection connection) throws SQLException {
+        ColumnsBuilder builder = new ColumnsBuilder(1 << 16);
+        try (PreparedStatement ps = connection.prepareStatement(LOAD_SQL)) {
+            ps.setFetchSize(properties.getFetchSize());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long teamId = rs.getLong(3);
+                    builder.add(rs.getLong(1), rs.getInt(2), rs.wasNull() ? null : teamId);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * overlay 를 기본 배열에 합쳐 새 배열을 만든다. 둘 다 id 순이므로 한 번 훑으면 된다.
+     */
+    private static Columns compact(Columns base, Map<Long, Row> overlay) {
+        BitSet replaced = new BitSet(base.size);
+        List<Map.Entry<Long, Row>> inserted = new ArrayList<>();
+        for (Map.Entry<Long, Row> entry : overlay.entrySet()) {
+            if (entry.getValue().baseIndex >= 0) {
+                replaced.set(entry.getValue().baseIndex);
+            } else {
+                inserted.add(entry);
+            }
+        }
+        inserted.sort(Map.Entry.comparingByKey());
+
+        ColumnsBuilder builder = new ColumnsBuilder(base.size + inserted.size());
+        int next = 0;
+        for (int i = 0; i < base.size; i++) {
+            long id = base.ids[i];
+            for (; next < inserted.size() && inserted.get(next).getKey() < id; next++) {
+                Row row = inserted.get(next).getValue();
+                builder.add(inserted.get(next).getKey(), row.age, row.teamId);
+            }
+            if (!replaced.get(i)) {
+                int team = base.teams[i];
+                builder.add(id, base.ages[i], team < 0 ? null : base.teamIds[team]);
+            } else {
+                Row row = overlay.get(id);
+                if (!row.deleted) {
+                    builder.add(id, row.age, row.teamId);
+                }
+            }
+        }
+        for (; next < inserted.size(); next++) {
+            Row row = inserted.get(next).getValue();
+            builder.add(inserted.get(next).getKey(), row.age, row.teamId);
+        }
+        return builder.build();
+    }
+
+    private <A> A aggregate(int size, Supplier<A> identity, LeafAggregator<A> leaf, BinaryOperator<A> combiner) {
+        //구간별 누적 배열 수가 CPU 수의 몇 배를 넘지 않도록 잎 크기를 정한다.
+        int leafSize = Math.max(MIN_LEAF_SIZE, size / (pool.getParallelism() * 4) + 1);
+        return pool.invoke(new AggregateTask<>(0, size, leafSize, identity, leaf, combiner));
+    }
+
+    private <T> T timed(String operation, Supplier<T> supplier) {
+        return meterRegistry.timer("datajpa.analytics.query", "operation", operation).record(supplier);
+    }
+
+    private static boolean isBulkAgePlus(EntityChangeEvent event) {
+        return MemberRepository.BULK_AGE_PLUS_QUERY.equals(event.getStatement())
+                && event.getParameters() != null && event.getParameters().get("age") instanceof Integer;
+    }
+
+    private static int compactThreshold(Columns base) {
+        return Math.max(MIN_COMPACT_THRESHOLD, base.size / 64);
+    }
+
+    private static int baseIndex(State state, long id) {
+        Columns base = state.base;
+        int index = Arrays.binarySearch(base.ids, 0, base.size, id);
+        return index >= 0 ? index : -1;
+    }
+
+    private static void checkBucketWidth(int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be positive. bucketWidth=" + bucketWidth);
+        }
+    }
+
+    private static int bucketStart(int age, int bucketWidth) {
+        return Math.floorDiv(age, bucketWidth) * bucketWidth;
+    }
+
+    private static void adjust(SortedMap<Integer, Long> counts, int bucket, long delta) {
+        counts.merge(bucket, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static void adjust(SortedMap<Long, SortedMap<Integer, Long>> cells, Long teamId, int bucket, long delta) {
+        SortedMap<Integer, Long> counts = cells.computeIfAbsent(teamId, id -> new TreeMap<>());
+        adjust(counts, bucket, delta);
+        if (counts.isEmpty()) {
+            cells.remove(teamId);
+        }
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    @FunctionalInterface
+    private interface LeafAggregator<A> {
+
+        void accumulate(A acc, int from, int to);
+    }
+
+    private static class AggregateTask<A> extends RecursiveTask<A> {
+
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Supplier<A> identity;
+        private final LeafAggregator<A> leaf;
+        private final BinaryOperator<A> combiner;
+
+        AggregateTask(int from, int to, int leafSize, Supplier<A> identity, LeafAggregator<A> leaf, BinaryOperator<A> combiner) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.identity = identity;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= leafSize) {
+                A acc = identity.get();
+                leaf.accumulate(acc, from, to);
+                return acc;
+            }
+            int mid = (from + to) >>> 1;
+            AggregateTask<A> left = new AggregateTask<>(from, mid, leafSize, identity, leaf, combiner);
+            left.fork();
+            A right = new AggregateTask<>(mid, to, leafSize, identity, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * 나이 -> 구간 인덱스. 나이 범위가 좁으면 표를 만들어 안쪽 루프에서 나눗셈 대신 배열 조회를 한다.
+     * 이상치 나이 하나로도 범위는 넓어지므로, 넓으면 표 대신 floorDiv 로 계산하고
+     * 구간 수까지 많으면 실제 있는 구간만 정렬해 두고 이분 탐색한다. (배열 크기가 나이 범위에 비례하지 않게)
+     */
+    private static class Buckets {
+
+        private static final int MAX_LOOKUP = 1 << 16;
+        private static final int MAX_DENSE = 1 << 16;
+
+        private final int width;
+        private final int minAge;
+        private final int first;
+        private final int[] lookup;
+        private final int[] keys;
+        private final int count;
+
+        Buckets(Columns base, int width) {
+            this.width = width;
+            this.minAge = base.minAge;
+            this.first = Math.floorDiv(base.minAge, width);
+            long span = (long) base.maxAge - base.minAge + 1;
+            long dense = (long) Math.floorDiv(base.maxAge, width) - first + 1;
+            if (span <= MAX_LOOKUP) {
+                this.lookup = new int[(int) span];
+                for (int i = 0; i < lookup.length; i++) {
+                    lookup[i] = Math.floorDiv(base.minAge + i, width) - first;
+                }
+                this.keys = null;
+                this.count = (int) dense;
+            } else if (dense <= MAX_DENSE) {
+                this.lookup = null;
+                this.keys = null;
+                this.count = (int) dense;
+            } else {
+                this.lookup = null;
+                int[] all = new int[base.size];
+                for (int i = 0; i < base.size; i++) {
+                    all[i] = Math.floorDiv(base.ages[i], width);
+                }
+                this.keys = Arrays.stream(all).sorted().distinct().toArray();
+                this.count = keys.length;
+            }
+        }
+
+        int index(int age) {
+            if (lookup != null) {
+                return lookup[age - minAge];
+            }
+            int key = Math.floorDiv(age, width);
+            return keys == null ? key - first : Arrays.binarySearch(keys, key);
+        }
+
+        int start(int bucket) {
+            return (keys == null ? first + bucket : keys[bucket]) * width;
+        }
+    }
+
+    private static class Columns {
+
+        static final Columns EMPTY = new Columns(new long[0], new int[0], new int[0], new long[0], 0, 0, 0);
+
+        private final long[] ids;
+        private final int[] ages;
+        private final int[] teams;
+        private final long[] teamIds;
+        private final int size;
+        private final int minAge;
+        private final int maxAge;
+
+        Columns(long[] ids, int[] ages, int[] teams, long[] teamIds, int size, int minAge, int maxAge) {
+            this.ids = ids;
+            this.ages = ages;
+            this.teams = teams;
+            this.teamIds = teamIds;
+            this.size = size;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * id 순으로 한 줄씩 받아 원시 배열을 늘려 가며 채운다. 팀 id 는 처음 본 순서대로 사전 인덱스를 매긴다.
+     */
+    private static class ColumnsBuilder {
+
+        private long[] ids;
+        private int[] ages;
+        private int[] teams;
+        private final Map<Long, Integer> teamIndexes = new HashMap<>();
+        private final List<Long> teamIds = new ArrayList<>();
+        private int size;
+        private int minAge = Integer.MAX_VALUE;
+        private int maxAge = Integer.MIN_VALUE;
+
+        ColumnsBuilder(int capacity) {
+            capacity = Math.max(capacity, 16);
+            this.ids = new long[capacity];
+            this.ages = new int[capacity];
+            this.teams = new int[capacity];
+        }
+
+        void add(long id, int age, Long teamId) {
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teams = Arrays.copyOf(teams, capacity);
+            }
+            ids[size] = id;
+            ages[size] = age;
+            teams[size] = teamId == null ? -1 : teamIndexes.computeIfAbsent(teamId, t -> {
+                teamIds.add(t);
+                return teamIds.size() - 1;
+            });
+            minAge = Math.min(minAge, age);
+            maxAge = Math.max(maxAge, age);
+            size++;
+        }
+
+        Columns build() {
+            if (size == 0) {
+                return Columns.EMPTY;
+            }
+            return new Columns(Arrays.copyOf(ids, size), Arrays.copyOf(ages, size), Arrays.copyOf(teams, size),
+                    teamIds.stream().mapToLong(Long::longValue).toArray(), size, minAge, maxAge);
+        }
+    }
+
+    private static class Row {
+
+        private final int baseIndex;
+        private final boolean deleted;
+        private final int age;
+        private final Long teamId;
+
+        Row(int baseIndex, boolean deleted, int age, Long teamId) {
+            this.baseIndex = baseIndex;
+            this.deleted = deleted;
+            this.age = age;
+            this.teamId = teamId;
+        }
+    }
+
+    /**
+     * 읽기는 state 하나만 보므로 기본 배열과 overlay 가 항상 같은 시점의 쌍이다.
+     */
+    private static class State {
+
+        private final Columns base;
+        private final Map<Long, Row> overlay;
+
+        State(Columns base, Map<Long, Row> overlay) {
+            this.base = base;
+            this.overlay = overlay;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.archive")
+public class ArchiveProperties {
+
+    /**
+     * false 면 스케줄 실행을 건너뛴다. (수동 호출은 가능)
+     */
+    private boolean enabled = false;
+
+    /**
+     * 스케줄 cron. "-" 면 스케줄하지 않는다.
+     */
+    private String cron = "-";
+
+    /**
+     * lastModifiedDate 가 이 기간보다 오래된 회원을 보관 대상으로 본다.
+     */
+    private Duration inactiveAfter = Duration.ofDays(180);
+
+    /**
+     * 한 트랜잭션에서 옮길 최대 회원 수
+     */
+    private int batchSize = 500;
+}
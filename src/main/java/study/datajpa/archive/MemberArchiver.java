@@ -0,0 +1,119 @@
+package study.datajpa.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.summary.TeamSummaryService;
+import study.datajpa.support.TeamMemberCountAdjuster;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * lastModifiedDate 가 오래된 회원을 member_archive 로 옮긴다.
+ * id 순서로 batchSize 씩 insert-select 후 delete 를 한 트랜잭션으로 처리하므로 중간에 멈춰도 유실/중복이 없다.
+ * 대상은 select ... for update 로 잠그고 insert-select 와 delete 에도 cutoff 조건을 다시 걸어,
+ * 고른 뒤 들어온 수정이 archive 에 빠진 채 지워지는 일이 없게 한다.
+ * 조회는 MemberRepository#findMemberDtoByIdIncludingArchive 로 hot 테이블에 없을 때만 archive 를 본다.
+ */
+@Slf4j
+@Service
+public class MemberArchiver {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+    private final TeamMemberCountAdjuster teamMemberCountAdjuster;
+    private final TeamSummaryService teamSummaryService;
+    private final EntityChangeCollector entityChangeCollector;
+    private final Counter archivedCounter;
+
+    public MemberArchiver(EntityManager em, PlatformTransactionManager transactionManager,
+                          ArchiveProperties properties, TeamMemberCountAdjuster teamMemberCountAdjuster,
+                          TeamSummaryService teamSummaryService, EntityChangeCollector entityChangeCollector,
+                          MeterRegistry meterRegistry) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.teamMemberCountAdjuster = teamMemberCountAdjuster;
+        this.teamSummaryService = teamSummaryService;
+        this.entityChangeCollector = entityChangeCollector;
+        this.archivedCounter = meterRegistry.counter("datajpa.archive.members");
+    }
+
+    @Scheduled(cron = "${datajpa.archive.cron:-}")
+    public void scheduledArchive() {
+        if (properties.isEnabled()) {
+            archiveInactiveMembers();
+        }
+    }
+
+    /**
+     * @return 옮긴 회원 수
+     */
+    public long archiveInactiveMembers() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getInactiveAfter());
+        long archived = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            List<Long> ids = transactionTemplate.execute(status -> archiveBatch(afterId, cutoff));
+            if (ids.isEmpty()) {
+                break;
+            }
+            archived += ids.size();
+            archivedCounter.increment(ids.size());
+            lastId = ids.get(ids.size() - 1);
+        }
+        log.info("member archive finished. archived={}", archived);
+        return archived;
+    }
+
+    private List<Long> archiveBatch(long afterId, LocalDateTime cutoff) {
+        List<Long> ids = em.createQuery(
+                "select m.id from Member m where m.id > :lastId and m.lastModifiedDate < :cutoff order by m.id", Long.class)
+                .setParameter("lastId", afterId)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(properties.getBatchSize())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        int inserted = em.createNativeQuery("insert into member_archive" +
+                        " (member_id, username, age, version, team_id, create_date, last_modified_date," +
+                        " create_by, last_modified_by, archived_date)" +
+                        " select member_id, username, age, version, team_id, create_date, last_modified_date," +
+                        " create_by, last_modified_by, current_timestamp" +
+                        " from member where member_id in (:ids) and last_modified_date < :cutoff")
+                .setParameter("ids", ids)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+        teamMemberCountAdjuster.beforeBulkDelete(ids);
+        teamSummaryService.beforeBulkDelete(ids);
+        int deleted = em.createQuery("delete from Member m where m.id in :ids and m.lastModifiedDate < :cutoff")
+                .setParameter("ids", ids)
+                .setParameter("cutoff", cutoff)
+                .executeUpdate();
+        if (inserted != ids.size() || deleted != ids.size()) {
+            //잠금 뒤라 일어나지 않아야 한다. archive 와 hot 테이블이 어긋나지 않게 배치 전체를 되돌린다.
+            throw new IllegalStateException("archive candidates changed while locked. expected=" + ids.size()
+                    + " inserted=" + inserted + " deleted=" + deleted);
+        }
+        entityChangeCollector.record(em, ids.stream()
+                .map(id -> EntityChangeEvent.of(EntityChangeEvent.Type.DELETE, Member.class, id))
+                .collect(Collectors.toList()));
+        return ids;
+    }
+}
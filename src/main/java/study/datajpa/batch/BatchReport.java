@@ -0,0 +1,68 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BatchReport {
+
+    private final String jobName;
+    private final List<PartitionResult> partitions;
+    private final long elapsedMillis;
+
+    public BatchReport(String jobName, List<PartitionResult> partitions, long elapsedMillis) {
+        this.jobName = jobName;
+        this.partitions = partitions;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getProcessedCount() {
+        return partitions.stream().mapToLong(PartitionResult::getProcessedCount).sum();
+    }
+
+    public boolean hasFailures() {
+        return partitions.stream().anyMatch(p -> p.getFailure() != null);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchReport{jobName=" + jobName +
+                ", partitions=" + partitions.size() +
+                ", processed=" + getProcessedCount() +
+                ", elapsedMillis=" + elapsedMillis +
+                ", failures=" + hasFailures() + "}";
+    }
+
+    @Getter
+    public static class PartitionResult {
+
+        private final long rangeStart;
+        private final long rangeEnd;
+        private final long processedCount;
+        private final long elapsedMillis;
+        private final String failure;
+
+        public PartitionResult(long rangeStart, long rangeEnd, long processedCount, long elapsedMillis, String failure) {
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+            this.processedCount = processedCount;
+            this.elapsedMillis = elapsedMillis;
+            this.failure = failure;
+        }
+
+        /**
+         * 초당 처리 건수
+         */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? processedCount : processedCount * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d, %d] processed=%d elapsed=%dms throughput=%.1f/s%s",
+                    rangeStart, rangeEnd, processedCount, elapsedMillis, getThroughput(),
+                    failure == null ? "" : " failure=" + failure);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package study.datajpa.batch;
+
+import study.datajpa.entity.Member;
+
+/**
+ * 파티션 배치에서 회원 한 명을 처리한다. 워커의 영속성 컨텍스트 안에서 호출되므로 변경감지로 수정된다.
+ */
+@FunctionalInterface
+public interface MemberItemProcessor {
+
+    void process(Member member);
+
+}
@@ -0,0 +1,217 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.BatchCheckpoint;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * member 테이블을 member_id 구간으로 나눠 병렬로 처리하는 배치.
+ * <p>
+ * 워커마다 EntityManager 와 트랜잭션을 따로 가지고, chunk 단위로 커밋 후 flush/clear 한다.
+ * chunk 커밋과 같은 트랜잭션에서 BatchCheckpoint 를 갱신하므로 중단된 잡은 같은 이름으로 다시 실행하면 이어서 처리한다.
+ * 파티션 구간은 잡을 처음 실행할 때의 min/max id 로 정해지며, 이후 추가된 회원은 대상이 아니다.
+ * chunk 마다 체크포인트 row 를 먼저 잠그고(PESSIMISTIC_WRITE) 그 lastProcessedId 부터 읽으므로,
+ * 같은 잡이 동시에 실행돼도 한 구간을 두 번 처리하지 않는다.
+ * 워커 수는 커넥션 풀 크기 - 1 을 넘지 않는다. (다른 요청이 쓸 커넥션을 하나는 남긴다)
+ */
+@Slf4j
+@Component
+public class MemberPartitionedBatchProcessor {
+
+    private final EntityManagerFactory emf;
+    private final int workers;
+    private final long partitionSize;
+    private final int chunkSize;
+
+    public MemberPartitionedBatchProcessor(EntityManagerFactory emf,
+                                           @Value("${datajpa.batch.workers:0}") int workers,
+                                           @Value("${datajpa.batch.partition-size:10000}") long partitionSize,
+                                           @Value("${datajpa.batch.chunk-size:500}") int chunkSize,
+                                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.emf = emf;
+        int requested = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.workers = Math.max(1, Math.min(requested, poolSize - 1));
+        if (this.workers < requested) {
+            log.info("batch workers capped by connection pool. requested={} workers={} poolSize={}", requested, this.workers, poolSize);
+        }
+        this.partitionSize = partitionSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchReport run(String jobName, MemberItemProcessor processor) {
+        long start = System.currentTimeMillis();
+        List<BatchCheckpoint> partitions = loadOrCreatePartitions(jobName);
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "member-batch-" + jobName + "-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<BatchReport.PartitionResult>> futures = new ArrayList<>();
+            for (BatchCheckpoint partition : partitions) {
+                if (!partition.isCompleted()) {
+                    futures.add(executor.submit(() -> processPartition(partition, processor)));
+                }
+            }
+
+            List<BatchReport.PartitionResult> results = new ArrayList<>();
+            for (Future<BatchReport.PartitionResult> future : futures) {
+                results.add(await(future));
+            }
+
+            BatchReport report = new BatchReport(jobName, results, System.currentTimeMillis() - start);
+            log.info("{}", report);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 체크포인트를 지우면 다음 실행은 처음부터 다시 파티셔닝한다.
+     */
+    public void reset(String jobName) {
+        inTransaction(em -> em.createQuery("delete from BatchCheckpoint c where c.jobName = :jobName")
+                .setParameter("jobName", jobName)
+                .executeUpdate());
+    }
+
+    private List<BatchCheckpoint> loadOrCreatePartitions(String jobName) {
+        return inTransaction(em -> {
+            List<BatchCheckpoint> checkpoints = em.createQuery(
+                    "select c from BatchCheckpoint c where c.jobName = :jobName order by c.rangeStart", BatchCheckpoint.class)
+                    .setParameter("jobName", jobName)
+                    .getResultList();
+            if (!checkpoints.isEmpty()) {
+                return checkpoints;
+            }
+
+            Object[] range = em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                    .getSingleResult();
+            if (range[0] == null) {
+                return checkpoints;
+            }
+
+            long min = (Long) range[0];
+            long max = (Long) range[1];
+            for (long lower = min - 1; lower < max; lower += partitionSize) {
+                BatchCheckpoint checkpoint = new BatchCheckpoint(jobName, lower, Math.min(lower + partitionSize, max));
+                em.persist(checkpoint);
+                checkpoints.add(checkpoint);
+            }
+            return checkpoints;
+        });
+    }
+
+    private BatchReport.PartitionResult processPartition(BatchCheckpoint partition, MemberItemProcessor processor) {
+        long start = System.currentTimeMillis();
+        long lastId = partition.getLastProcessedId();
+        long processed = 0;
+        EntityManager em = emf.createEntityManager();
+        try {
+            while (true) {
+                EntityTransaction tx = em.getTransaction();
+                tx.begin();
+                try {
+                    BatchCheckpoint checkpoint = em.find(BatchCheckpoint.class, partition.getId(), LockModeType.PESSIMISTIC_WRITE);
+                    if (checkpoint == null) {
+                        throw new IllegalStateException("checkpoint removed while running. id=" + partition.getId());
+                    }
+                    if (checkpoint.isCompleted()) {
+                        //같은 잡의 다른 실행이 끝냈다.
+                        tx.commit();
+                        break;
+                    }
+                    lastId = checkpoint.getLastProcessedId();
+                    List<Member> chunk = em.createQuery(
+                            "select m from Member m where m.id > :lastId and m.id <= :rangeEnd order by m.id", Member.class)
+                            .setParameter("lastId", lastId)
+                            .setParameter("rangeEnd", partition.getRangeEnd())
+                            .setMaxResults(chunkSize)
+                            .getResultList();
+
+                    for (Member member : chunk) {
+                        processor.process(member);
+                    }
+
+                    if (!chunk.isEmpty()) {
+                        lastId = chunk.get(chunk.size() - 1).getId();
+                        checkpoint.advance(lastId, chunk.size());
+                    }
+                    boolean last = chunk.size() < chunkSize;
+                    if (last) {
+                        checkpoint.complete();
+                    }
+
+                    em.flush();
+                    tx.commit();
+                    em.clear();
+                    processed += chunk.size();
+
+                    if (last) {
+                        break;
+                    }
+                } catch (RuntimeException e) {
+                    if (tx.isActive()) {
+                        tx.rollback();
+                    }
+                    throw e;
+                }
+            }
+            return new BatchReport.PartitionResult(partition.getRangeStart(), partition.getRangeEnd(),
+                    processed, System.currentTimeMillis() - start, null);
+        } catch (RuntimeException e) {
+            log.error("partition ({}, {}] failed after id={}", partition.getRangeStart(), partition.getRangeEnd(), lastId, e);
+            return new BatchReport.PartitionResult(partition.getRangeStart(), partition.getRangeEnd(),
+                    processed, System.currentTimeMillis() - start, e.toString());
+        } finally {
+            em.close();
+        }
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("batch worker failed", e.getCause());
+        }
+    }
+}
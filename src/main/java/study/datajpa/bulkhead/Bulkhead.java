@@ -0,0 +1,16 @@
+package study.datajpa.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔드포인트가 속한 격벽(동시 실행 한도) 이름. 한도는 datajpa.bulkhead.compartments.{이름} 으로 정한다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    String value();
+}
@@ -0,0 +1,100 @@
+package study.datajpa.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @Bulkhead 가 붙은 핸들러의 동시 실행 수를 격벽별로 제한한다.
+ * 한도가 찼거나, 버려도 되는(sheddable) 격벽인데 커넥션 풀이 포화면 기다리지 않고 바로 503 + Retry-After 로 돌려보낸다.
+ * 목록 조회가 몰려도 단건 조회는 자기 몫의 자리와 커넥션을 쓸 수 있다.
+ */
+@Component
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final BulkheadProperties properties;
+    private final PoolSaturationMonitor poolSaturationMonitor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public BulkheadInterceptor(BulkheadProperties properties, PoolSaturationMonitor poolSaturationMonitor,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.poolSaturationMonitor = poolSaturationMonitor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        }
+        if (bulkhead == null) {
+            return true;
+        }
+
+        String name = bulkhead.value();
+        BulkheadProperties.Compartment compartment = properties.getCompartments().get(name);
+        if (compartment == null) {
+            throw new IllegalStateException("bulkhead not configured. name=" + name);
+        }
+        if (compartment.isSheddable() && poolSaturationMonitor.isSaturated()) {
+            reject(response, name, "saturated");
+            return false;
+        }
+        Semaphore semaphore = permits(name, compartment);
+        if (!semaphore.tryAcquire()) {
+            reject(response, name, "full");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, semaphore);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Semaphore semaphore = (Semaphore) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (semaphore != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            semaphore.release();
+        }
+    }
+
+    private Semaphore permits(String name, BulkheadProperties.Compartment compartment) {
+        return permits.computeIfAbsent(name, n -> {
+            Semaphore semaphore = new Semaphore(compartment.getMaxConcurrent());
+            meterRegistry.gauge("datajpa.bulkhead.active", Tags.of("bulkhead", n), semaphore,
+                    s -> compartment.getMaxConcurrent() - s.availablePermits());
+            return semaphore;
+        });
+    }
+
+    private void reject(HttpServletResponse response, String name, String reason) throws IOException {
+        meterRegistry.counter("datajpa.bulkhead.rejected", "bulkhead", name, "reason", reason).increment();
+        long retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"overloaded\",\"bulkhead\":\"" + name + "\",\"reason\":\"" + reason + "\"}");
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.bulkhead;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.bulkhead")
+public class BulkheadProperties {
+
+    private Map<String, Compartment> compartments = new HashMap<>();
+
+    /**
+     * 거절 응답의 Retry-After
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * 커넥션 풀 상태를 다시 보는 간격
+     */
+    private Duration sampleInterval = Duration.ofMillis(100);
+
+    /**
+     * 직전 구간의 평균 커넥션 획득 대기가 이보다 길면 포화
+     */
+    private Duration maxAcquireWait = Duration.ofMillis(20);
+
+    /**
+     * 대기 스레드가 있으면서 사용 중 커넥션 비율이 이 이상이면 포화
+     */
+    private double maxActiveRatio = 0.9;
+
+    @Getter @Setter
+    public static class Compartment {
+
+        private int maxConcurrent = 10;
+
+        /**
+         * 풀이 포화되면 한도와 상관없이 바로 거절할지
+         */
+        private boolean sheddable;
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hikari 풀이 포화됐는지 판단한다.
+ * <p>
+ * sampleInterval 마다 한 번, 호출한 요청 스레드 중 하나가 풀 상태를 읽는다. (별도 스레드 없음)
+ * 직전 구간의 평균 커넥션 획득 대기(hikaricp.connections.acquire 누적값의 차이)가 maxAcquireWait 를 넘거나,
+ * 커넥션을 기다리는 스레드가 있으면서 사용 중 비율이 maxActiveRatio 이상이면 포화로 본다.
+ */
+@Slf4j
+@Component
+public class PoolSaturationMonitor {
+
+    private final HikariDataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final BulkheadProperties properties;
+    private final AtomicLong nextSampleNanos = new AtomicLong();
+
+    private volatile boolean saturated;
+    private volatile double acquireWaitMillis;
+    private volatile double utilization;
+    private long lastAcquireCount;
+    private double lastAcquireTotalMillis;
+
+    public PoolSaturationMonitor(DataSource dataSource, MeterRegistry meterRegistry, BulkheadProperties properties) throws SQLException {
+        this.dataSource = dataSource.unwrap(HikariDataSource.class);
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        meterRegistry.gauge("datajpa.pool.saturated", this, m -> m.saturated ? 1 : 0);
+        meterRegistry.gauge("datajpa.pool.acquire-wait", this, m -> m.acquireWaitMillis);
+        meterRegistry.gauge("datajpa.pool.utilization", this, m -> m.utilization);
+    }
+
+    public boolean isSaturated() {
+        long now = System.nanoTime();
+        long next = nextSampleNanos.get();
+        if (now - next >= 0 && nextSampleNanos.compareAndSet(next, now + properties.getSampleInterval().toNanos())) {
+            sample();
+        }
+        return saturated;
+    }
+
+    private synchronized void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            //아직 첫 커넥션을 만들기 전
+            return;
+        }
+        int active = pool.getActiveConnections();
+        int awaiting = pool.getThreadsAwaitingConnection();
+        utilization = (double) active / dataSource.getMaximumPoolSize();
+
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire != null) {
+            long count = acquire.count();
+            double totalMillis = acquire.totalTime(TimeUnit.MILLISECONDS);
+            acquireWaitMillis = count > lastAcquireCount
+                    ? (totalMillis - lastAcquireTotalMillis) / (count - lastAcquireCount)
+                    : 0;
+            lastAcquireCount = count;
+            lastAcquireTotalMillis = totalMillis;
+        }
+
+        boolean wasSaturated = saturated;
+        saturated = acquireWaitMillis > properties.getMaxAcquireWait().toMillis()
+                || (awaiting > 0 && utilization >= properties.getMaxActiveRatio());
+        if (saturated != wasSaturated) {
+            log.info("connection pool saturated={} active={} awaiting={} acquireWaitMillis={}",
+                    saturated, active, awaiting, acquireWaitMillis);
+        }
+    }
+}
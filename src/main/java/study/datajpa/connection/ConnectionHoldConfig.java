@@ -0,0 +1,41 @@
+package study.datajpa.connection;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource 를 ConnectionHoldTimeDataSource 로 감싸고 요청별 기록 인터셉터를 건다.
+ * unwrap 은 원래 DataSource(Hikari)로 위임되므로 풀 메트릭/모니터는 그대로 동작한다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ConnectionHoldConfig implements WebMvcConfigurer {
+
+    private final ConnectionHoldInterceptor connectionHoldInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        //렌더링까지 포함한 요청 전체 시간을 보도록 격벽 바로 다음, 다른 인터셉터보다 바깥에 둔다.
+        registry.addInterceptor(connectionHoldInterceptor).order(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+                    return new ConnectionHoldTimeDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+}
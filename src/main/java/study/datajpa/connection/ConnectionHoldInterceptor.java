@@ -0,0 +1,57 @@
+package study.datajpa.connection;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청별 커넥션 점유 시간을 남긴다.
+ * <ul>
+ *     <li>datajpa.request.connection-hold{endpoint} - 요청 동안 커넥션을 잡고 있던 시간 합</li>
+ *     <li>datajpa.request.connection-hold-ratio{endpoint} - 요청 처리 시간 중 커넥션을 잡고 있던 비율</li>
+ * </ul>
+ * open-in-view 가 꺼져 있으면 비율이 쿼리 시간만큼이고, 응답 렌더링까지 커넥션을 잡으면 1 에 가깝다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionHoldInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ConnectionHoldRecorder.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ConnectionHoldRecorder.Recording recording = ConnectionHoldRecorder.current();
+        ConnectionHoldRecorder.clear();
+        if (recording == null || recording.getAcquired() == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? request.getRequestURI() : pattern.toString();
+        long elapsedNanos = System.nanoTime() - recording.getStartNanos();
+
+        meterRegistry.timer("datajpa.request.connection-hold", "endpoint", endpoint)
+                .record(recording.getHeldNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("datajpa.request.connection-hold-ratio")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(elapsedNanos == 0 ? 0 : (double) recording.getHeldNanos() / elapsedNanos);
+        if (recording.getOpen() > 0) {
+            log.warn("connection still held after request completed. endpoint={} open={}", endpoint, recording.getOpen());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.connection;
+
+/**
+ * 현재 요청이 커넥션을 몇 번 빌려 얼마나 잡고 있었는지 모은다. ConnectionHoldInterceptor 가 요청 시작 시 걸고 끝나면 지운다.
+ */
+public final class ConnectionHoldRecorder {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    private ConnectionHoldRecorder() {
+    }
+
+    public static Recording start() {
+        Recording recording = new Recording(System.nanoTime());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    public static Recording current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static class Recording {
+
+        private final long startNanos;
+        private int acquired;
+        private int open;
+        private long heldNanos;
+
+        Recording(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        synchronized void acquired() {
+            acquired++;
+            open++;
+        }
+
+        synchronized void released(long nanos) {
+            open--;
+            heldNanos += nanos;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public synchronized int getAcquired() {
+            return acquired;
+        }
+
+        /**
+         * 요청이 끝날 때까지 반납되지 않은 커넥션 수
+         */
+        public synchronized int getOpen() {
+            return open;
+        }
+
+        public synchronized long getHeldNanos() {
+            return heldNanos;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.analytics.MemberColumnSnapshot;
+
+import java.util.SortedMap;
+import java.util.function.Supplier;
+
+/**
+ * 회원 나이/팀 분석. 메모리 컬럼 스냅샷만 본다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAnalyticsController {
+
+    private final MemberColumnSnapshot memberColumnSnapshot;
+
+    @GetMapping(value = "/analytics/members/age-histogram")
+    public SortedMap<Integer, Long> ageHistogram(@RequestParam(value = "bucket", defaultValue = "10") int bucket) {
+        return badRequestOnInvalid(() -> memberColumnSnapshot.ageHistogram(bucket));
+    }
+
+    @GetMapping(value = "/analytics/members/team-age")
+    public SortedMap<Long, SortedMap<Integer, Long>> teamAge(@RequestParam(value = "bucket", defaultValue = "10") int bucket) {
+        return badRequestOnInvalid(() -> memberColumnSnapshot.teamAgeCrossTab(bucket));
+    }
+
+    @GetMapping(value = "/analytics/members/count")
+    public long countAgeAtLeast(@RequestParam("minAge") int minAge) {
+        return memberColumnSnapshot.countAgeAtLeast(minAge);
+    }
+
+    private static <T> T badRequestOnInvalid(Supplier<T> query) {
+        try {
+            return query.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
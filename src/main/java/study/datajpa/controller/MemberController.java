@@ -4,43 +4,82 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.bulkhead.Bulkhead;
+import study.datajpa.deadline.TimeBudget;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MultiGetResult;
 import study.datajpa.entity.Member;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.search.UsernamePrefixIndex;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SUGGEST_LIMIT = 100;
+    private static final int MAX_MULTI_GET_IDS = 500;
+
     private final MemberRepository memberRepository;
+    private final UsernamePrefixIndex usernamePrefixIndex;
 
+    @Bulkhead("member-item")
     @GetMapping(value = "/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
         Member member = memberRepository.findById(id).get();
         return member.getUsername();
     }
 
+    @Bulkhead("member-item")
     @GetMapping(value = "/members2/{id}")
     public String findMember2(@PathVariable("id") Member member) {
         return member.getUsername();
     }
 
+    @Bulkhead("member-list")
+    @TimeBudget(millis = 2000)
     @GetMapping(value = "/members")
-    public Page<Member> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable);
+    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
+        return memberRepository.findMemberDtos(pageable);
     }
 
+    @Bulkhead("member-list")
+    @TimeBudget(millis = 2000)
     @GetMapping(value = "/members2")
     public Page<MemberDto> list2(@PageableDefault(size = 5) Pageable pageable) {
         return memberRepository.findAll(pageable).map(MemberDto::new);
     }
 
+    /**
+     * /members?ids=3,1,2 - 요청 순서대로, 없는 id 는 missingIds 로 알려준다.
+     */
+    @Bulkhead("member-list")
+    @GetMapping(value = "/members", params = "ids")
+    public MultiGetResult<MemberDto> listByIds(@RequestParam("ids") List<Long> ids) {
+        if (ids.size() > MAX_MULTI_GET_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many ids. max=" + MAX_MULTI_GET_IDS);
+        }
+        return memberRepository.findAllByIdsOrdered(ids).map(MemberDto::new);
+    }
+
+    /**
+     * username 자동완성. 메모리 인덱스만 본다.
+     */
+    @GetMapping(value = "/members/suggest")
+    public List<String> suggest(@RequestParam("prefix") String prefix,
+                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return usernamePrefixIndex.suggest(prefix, Math.max(0, Math.min(limit, MAX_SUGGEST_LIMIT)));
+    }
+
     //@PostConstruct
     public void init() {
         for (int i = 0; i < 100; i++) {
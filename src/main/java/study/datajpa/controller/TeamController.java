@@ -0,0 +1,35 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.dto.TeamSummaryDto;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamSummaryRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamRepository teamRepository;
+    private final TeamSummaryRepository teamSummaryRepository;
+
+    @GetMapping(value = "/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 5) Pageable pageable) {
+        return teamRepository.findTeamDtos(pageable);
+    }
+
+    @GetMapping(value = "/teams/{id}/summary")
+    public TeamSummaryDto summary(@PathVariable("id") Long id) {
+        return teamSummaryRepository.findById(id)
+                .map(TeamSummaryDto::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "team summary not found. id=" + id));
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.deadline;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 요청 마감 시각을 JPA 쿼리 타임아웃으로 전달한다.
+ * EntityManager 가 만들어질 때 남은 시간을 javax.persistence.query.timeout 으로 걸고,
+ * 이미 열린 트랜잭션 안의 쿼리는 QueryTimeoutAspect 가 리포지토리 호출마다 다시 맞춘다.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class DeadlineConfig implements WebMvcConfigurer {
+
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(deadlineInterceptor);
+    }
+
+    @Bean
+    public static BeanPostProcessor queryTimeoutEntityManagerInitializer() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setEntityManagerInitializer(em ->
+                            RequestDeadline.queryTimeoutMillis().ifPresent(timeout ->
+                                    em.setProperty(QueryHints.SPEC_HINT_TIMEOUT, (int) timeout)));
+                }
+                return bean;
+            }
+        };
+    }
+}
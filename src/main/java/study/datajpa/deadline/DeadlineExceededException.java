@@ -0,0 +1,11 @@
+package study.datajpa.deadline;
+
+/**
+ * 요청 시간 예산이 다 떨어져 쿼리를 시작하지 않았다.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String endpoint) {
+        super("request deadline exceeded. endpoint=" + endpoint);
+    }
+}
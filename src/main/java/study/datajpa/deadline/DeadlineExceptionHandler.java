@@ -0,0 +1,41 @@
+package study.datajpa.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * 시간 예산 초과를 503 으로 돌려준다. 쿼리가 타임아웃으로 취소된 경우 datajpa.deadline.cancelled 를 올린다.
+ */
+@Slf4j
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class DeadlineExceptionHandler {
+
+    private final MeterRegistry meterRegistry;
+
+    @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+    public ResponseEntity<Map<String, String>> queryTimeout(RuntimeException e) {
+        String endpoint = RequestDeadline.endpoint();
+        meterRegistry.counter("datajpa.deadline.cancelled", "endpoint", endpoint).increment();
+        log.warn("query cancelled by request deadline. endpoint={}", endpoint);
+        return serviceUnavailable(endpoint);
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Map<String, String>> deadlineExceeded(DeadlineExceededException e) {
+        return serviceUnavailable(RequestDeadline.endpoint());
+    }
+
+    private static ResponseEntity<Map<String, String>> serviceUnavailable(String endpoint) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "deadline_exceeded", "endpoint", endpoint));
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.deadline")
+public class DeadlineProperties {
+
+    /**
+     * @TimeBudget 이 없는 엔드포인트의 시간 예산
+     */
+    private Duration defaultBudget = Duration.ofSeconds(5);
+}
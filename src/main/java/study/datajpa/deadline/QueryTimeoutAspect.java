@@ -0,0 +1,44 @@
+package study.datajpa.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.OptionalLong;
+
+/**
+ * 리포지토리 호출 직전에 남은 요청 시간을 확인한다.
+ * 다 떨어졌으면 쿼리를 보내지 않고 DeadlineExceededException, 남았으면 트랜잭션에 묶인 EntityManager 의
+ * 쿼리 타임아웃을 남은 시간으로 줄인다. (새로 만들어지는 EntityManager 는 DeadlineConfig 가 건다)
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class QueryTimeoutAspect {
+
+    private final EntityManagerFactory emf;
+    private final MeterRegistry meterRegistry;
+
+    @Before("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public void applyDeadline() {
+        OptionalLong remaining = RequestDeadline.remainingMillis();
+        if (remaining.isEmpty()) {
+            return;
+        }
+        if (remaining.getAsLong() <= 0) {
+            meterRegistry.counter("datajpa.deadline.exceeded", "endpoint", RequestDeadline.endpoint()).increment();
+            throw new DeadlineExceededException(RequestDeadline.endpoint());
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder != null) {
+            holder.getEntityManager().setProperty(QueryHints.SPEC_HINT_TIMEOUT,
+                    (int) RequestDeadline.queryTimeoutMillis().getAsLong());
+        }
+    }
+}
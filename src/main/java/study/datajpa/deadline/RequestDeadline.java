@@ -0,0 +1,63 @@
+package study.datajpa.deadline;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * 현재 스레드(요청)의 마감 시각. DeadlineInterceptor 가 요청 시작 시 걸고 끝나면 지운다.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(String endpoint, Duration budget) {
+        CURRENT.set(new Deadline(endpoint, System.nanoTime() + budget.toNanos()));
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 남은 시간(ms). 마감이 없으면 empty, 지났으면 0 이하.
+     */
+    public static OptionalLong remainingMillis() {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(Duration.ofNanos(deadline.deadlineNanos - System.nanoTime()).toMillis());
+    }
+
+    /**
+     * javax.persistence.query.timeout 에 넣을 값. Hibernate 는 ms 를 초 단위(버림)로 JDBC 에 넘기므로
+     * 1초 미만이 0(무제한)이 되지 않도록 초 단위로 올린다.
+     */
+    public static OptionalLong queryTimeoutMillis() {
+        OptionalLong remaining = remainingMillis();
+        if (remaining.isEmpty()) {
+            return remaining;
+        }
+        long seconds = Math.max(1, (remaining.getAsLong() + 999) / 1000);
+        return OptionalLong.of(seconds * 1000);
+    }
+
+    public static String endpoint() {
+        Deadline deadline = CURRENT.get();
+        return deadline == null ? "none" : deadline.endpoint;
+    }
+
+    private static class Deadline {
+
+        private final String endpoint;
+        private final long deadlineNanos;
+
+        Deadline(String endpoint, long deadlineNanos) {
+            this.endpoint = endpoint;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
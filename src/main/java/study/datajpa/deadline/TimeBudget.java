@@ -0,0 +1,16 @@
+package study.datajpa.deadline;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔드포인트별 시간 예산. 없으면 datajpa.deadline.default-budget 을 쓴다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimeBudget {
+
+    long millis();
+}
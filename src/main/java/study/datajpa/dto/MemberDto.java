@@ -3,6 +3,7 @@ package study.datajpa.dto;
 import lombok.Getter;
 import lombok.Setter;
 import study.datajpa.entity.Member;
+import study.datajpa.support.ProjectionPath;
 
 @Getter @Setter
 public class MemberDto {
@@ -11,7 +12,7 @@ public class MemberDto {
     private String username;
     private String teamname;
 
-    public MemberDto(Long id, String username, String teamname) {
+    public MemberDto(Long id, String username, @ProjectionPath("team.name") String teamname) {
         this.id = id;
         this.username = username;
         this.teamname = teamname;
@@ -0,0 +1,26 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * id 목록 조회 결과. found 는 요청한 id 순서, 없는 id 는 missingIds 에 담는다.
+ */
+@Getter
+public class MultiGetResult<T> {
+
+    private final List<T> found;
+    private final List<Long> missingIds;
+
+    public MultiGetResult(List<T> found, List<Long> missingIds) {
+        this.found = found;
+        this.missingIds = missingIds;
+    }
+
+    public <R> MultiGetResult<R> map(Function<? super T, ? extends R> mapper) {
+        return new MultiGetResult<>(found.stream().map(mapper).collect(Collectors.toList()), missingIds);
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class TeamDto {
+
+    private Long id;
+    private String name;
+    private long memberCount;
+
+    public TeamDto(Long id, String name, long memberCount) {
+        this.id = id;
+        this.name = name;
+        this.memberCount = memberCount;
+    }
+}
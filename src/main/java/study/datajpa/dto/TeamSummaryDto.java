@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import study.datajpa.entity.TeamSummary;
+
+@Getter
+public class TeamSummaryDto {
+
+    private final Long teamId;
+    private final long memberCount;
+    private final double averageAge;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    public TeamSummaryDto(TeamSummary summary) {
+        this.teamId = summary.getTeamId();
+        this.memberCount = summary.getMemberCount();
+        this.averageAge = summary.getAverageAge();
+        this.minAge = summary.getMinAge();
+        this.maxAge = summary.getMaxAge();
+    }
+}
@@ -1,14 +1,17 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
+import org.hibernate.annotations.LazyGroup;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
 import javax.persistence.MappedSuperclass;
 
 @EntityListeners(AuditingEntityListener.class)
@@ -16,7 +19,14 @@ import javax.persistence.MappedSuperclass;
 @Getter
 public class BaseEntity extends BaseTimeEntity {
 
+    /**
+     * 생성자는 조회 화면에서 거의 쓰지 않으므로 바이트코드 보강 시 지연 로딩한다. (insert 때만 쓰이므로 항상 초기화된 상태에서 채워진다)
+     * lastModifiedBy 는 AuditingEntityListener 가 수정 때마다 리플렉션으로 쓰는데, 로딩되지 않은 지연 그룹에 쓰면
+     * 보강된 엔티티의 변경 추적을 거치지 않아 update 에서 빠질 수 있으므로 즉시 로딩으로 둔다.
+     */
     @CreatedBy
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("audit")
     @Column(updatable = false)
     private String createBy;
 
@@ -0,0 +1,55 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 파티션 배치 진행상황. (rangeStart, rangeEnd] 구간 중 lastProcessedId 까지 커밋되었다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_batch_checkpoint_job", columnList = "jobName"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BatchCheckpoint {
+
+    @Id
+    @Column(name = "checkpoint_id")
+    private String id;
+    private String jobName;
+    private long rangeStart;
+    private long rangeEnd;
+    private long lastProcessedId;
+    private long processedCount;
+    private boolean completed;
+    private LocalDateTime updatedDate;
+
+    public BatchCheckpoint(String jobName, long rangeStart, long rangeEnd) {
+        this.id = jobName + ":" + rangeStart;
+        this.jobName = jobName;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.lastProcessedId = rangeStart;
+        this.updatedDate = LocalDateTime.now();
+    }
+
+    public void advance(long lastProcessedId, int count) {
+        this.lastProcessedId = lastProcessedId;
+        this.processedCount += count;
+        this.updatedDate = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.updatedDate = LocalDateTime.now();
+    }
+}
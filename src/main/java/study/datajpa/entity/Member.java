@@ -1,6 +1,9 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -15,12 +18,25 @@ import javax.persistence.*;
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "member_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "study.datajpa.support.BlockIdOptimizer")
+    })
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    /**
+     * 낙관적 락 버전. 동시 수정 충돌은 OptimisticLockRetryTemplate 으로 재시도한다.
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -42,8 +58,17 @@ public class Member extends BaseEntity {
         }
     }
 
+    /**
+     * 연관관계 편의 메서드. 팀의 members 컬렉션(또는 팀 프록시)을 초기화하지 않으므로 팀 크기와 무관하게 상수 시간이다.
+     */
     public void changeTeam(Team team) {
+        Team oldTeam = this.team;
+        if (oldTeam != null && oldTeam != team && Hibernate.isInitialized(oldTeam)) {
+            oldTeam.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null && Hibernate.isInitialized(team)) {
+            team.addMember(this);
+        }
     }
 }
@@ -0,0 +1,40 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 오래 수정되지 않은 회원을 옮겨두는 cold 테이블. member 와 같은 컬럼 + 보관일시.
+ * MemberArchiver 가 insert-select 로만 채우므로 읽기 전용이다.
+ */
+@Entity
+@Table(name = "member_archive")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "archivedDate"})
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+    private Long version;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private LocalDateTime createDate;
+    private LocalDateTime lastModifiedDate;
+    private String createBy;
+    private String lastModifiedBy;
+    private LocalDateTime archivedDate;
+}
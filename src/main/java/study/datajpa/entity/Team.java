@@ -1,6 +1,11 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -9,18 +14,59 @@ import java.util.List;
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@ToString(of = {"id", "name"})
+@ToString(of = {"id", "name", "memberCount"})
 public class Team extends JpaBaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "team_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "study.datajpa.support.BlockIdOptimizer")
+    })
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    /**
+     * 비정규화된 소속 회원 수. TeamMemberCountListener 가 커밋 직전 원자적 증감 SQL 로만 갱신하므로
+     * 엔티티 변경감지로는 덮어쓰지 않는다.
+     */
+    @Column(name = "member_count", nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private long memberCount;
+
     @OneToMany(mappedBy = "team")
+    @OptimisticLock(excluded = true)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * members 를 로딩하지 않고 메모리상 양방향 관계를 맞춘다.
+     * 세션에 연결된 초기화 전 컬렉션은 mappedBy(inverse) 이므로 add 가 큐에 쌓였다가 로딩될 때 반영된다. (flush 전이어도 보인다)
+     * 준영속 상태의 초기화 전 컬렉션은 add 가 로딩을 시도하다 실패하므로 건너뛴다. (DB 는 member.team_id 가 기준)
+     */
+    void addMember(Member member) {
+        try {
+            members.add(member);
+        } catch (LazyInitializationException e) {
+            // 준영속 컬렉션: 다음에 로딩할 때 DB 상태를 읽는다.
+        }
+    }
+
+    /**
+     * 초기화 전 컬렉션의 remove 는 전체 로딩을 일으키므로 이미 로딩된 경우에만 반영한다.
+     */
+    void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
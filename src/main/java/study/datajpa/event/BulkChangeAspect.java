@@ -0,0 +1,85 @@
+package study.datajpa.event;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 리포지토리 벌크 쿼리(@Modifying, deleteAllInBatch 계열)를 변경 이벤트로 기록한다.
+ * 벌크 쿼리는 엔티티 이벤트가 없으므로 영향받은 row 수와 쿼리, @Param 으로 이름 붙은 인자만 담는다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class BulkChangeAspect {
+
+    private final EntityChangeCollector collector;
+    private final EntityManager em;
+
+    @AfterReturning(pointcut = "@annotation(org.springframework.data.jpa.repository.Modifying)", returning = "result")
+    public void afterModifying(JoinPoint joinPoint, Object result) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Query query = method.getAnnotation(Query.class);
+        String statement = query == null ? method.getName() : query.value();
+        EntityChangeEvent.Type type = statement.trim().toLowerCase(Locale.ROOT).startsWith("delete")
+                ? EntityChangeEvent.Type.BULK_DELETE : EntityChangeEvent.Type.BULK_UPDATE;
+        record(joinPoint, type, result instanceof Number ? ((Number) result).intValue() : -1,
+                statement, parameters(method, joinPoint.getArgs()));
+    }
+
+    @AfterReturning("execution(* org.springframework.data.jpa.repository.JpaRepository+.deleteAllInBatch(..))" +
+            " || execution(* org.springframework.data.jpa.repository.JpaRepository+.deleteAllByIdInBatch(..))" +
+            " || execution(* org.springframework.data.jpa.repository.JpaRepository+.deleteInBatch(..))")
+    public void afterDeleteInBatch(JoinPoint joinPoint) {
+        record(joinPoint, EntityChangeEvent.Type.BULK_DELETE, -1, joinPoint.getSignature().getName(), null);
+    }
+
+    private void record(JoinPoint joinPoint, EntityChangeEvent.Type type, int affectedRows, String statement,
+                        Map<String, Object> parameters) {
+        Class<?> entityType = domainType(joinPoint);
+        if (entityType != null && EntityChangeCollector.isTracked(entityType)) {
+            collector.record(em, List.of(parameters == null
+                    ? EntityChangeEvent.bulk(type, entityType, affectedRows, statement)
+                    : EntityChangeEvent.bulk(type, entityType, affectedRows, statement, parameters)));
+        }
+    }
+
+    private static Map<String, Object> parameters(Method method, Object[] args) {
+        Map<String, Object> parameters = new HashMap<>();
+        Parameter[] declared = method.getParameters();
+        for (int i = 0; i < declared.length; i++) {
+            Param param = declared[i].getAnnotation(Param.class);
+            if (param != null && args[i] != null) {
+                parameters.put(param.value(), args[i]);
+            }
+        }
+        return parameters;
+    }
+
+    private static Class<?> domainType(JoinPoint joinPoint) {
+        for (Class<?> repositoryInterface : joinPoint.getThis().getClass().getInterfaces()) {
+            if (Repository.class.isAssignableFrom(repositoryInterface)) {
+                Class<?> domainType = ResolvableType.forClass(repositoryInterface).as(Repository.class).resolveGeneric(0);
+                if (domainType != null) {
+                    return domainType;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 한 트랜잭션에서 커밋된 변경 묶음
+ */
+@Getter
+@ToString
+public class EntityChangeBatch {
+
+    private final List<EntityChangeEvent> events;
+    private final LocalDateTime committedAt;
+
+    public EntityChangeBatch(List<EntityChangeEvent> events) {
+        this.events = List.copyOf(events);
+        this.committedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,131 @@
+package study.datajpa.event;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.SessionAccumulator;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Member, Team, Item 의 insert/update/delete 를 세션(트랜잭션) 단위로 모았다가 커밋 성공 후 한 배치로 발행한다.
+ * 롤백되면 버린다. 벌크 쿼리는 BulkChangeAspect 가 {@link #record} 로 같은 배치에 넣는다.
+ * {@link EntityChangeRecordListener} 는 기록 시점에 바로 호출한다.
+ */
+@Component
+public class EntityChangeCollector implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<Class<?>> TRACKED = Set.of(Member.class, Team.class, Item.class);
+
+    private final ObjectProvider<EntityChangePublisher> publisher;
+    private final ObjectProvider<EntityChangeRecordListener> recordListeners;
+    private final SessionAccumulator<List<EntityChangeEvent>> pending = SessionAccumulator.afterCompletion(ArrayList::new, this::publish);
+
+    public EntityChangeCollector(ObjectProvider<EntityChangePublisher> publisher,
+                                 ObjectProvider<EntityChangeRecordListener> recordListeners) {
+        this.publisher = publisher;
+        this.recordListeners = recordListeners;
+    }
+
+    public static boolean isTracked(Class<?> entityType) {
+        return TRACKED.contains(entityType);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onChange(event.getSession(), EntityChangeEvent.Type.INSERT, event.getEntity(), event.getId(),
+                event.getPersister(), null, event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onChange(event.getSession(), EntityChangeEvent.Type.UPDATE, event.getEntity(), event.getId(),
+                event.getPersister(), event.getOldState(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onChange(event.getSession(), EntityChangeEvent.Type.DELETE, event.getEntity(), event.getId(),
+                event.getPersister(), event.getDeletedState(), null);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 진행 중인 트랜잭션(session)의 배치에 이벤트를 추가한다.
+     */
+    public void record(SharedSessionContractImplementor session, EntityChangeEvent event) {
+        notifyRecorded(event);
+        pending.get(session).add(event);
+    }
+
+    /**
+     * 엔티티 이벤트를 거치지 않는 변경(벌크/네이티브 쿼리)용.
+     * 트랜잭션 안이면 그 트랜잭션의 배치에 넣고, 밖이면(이미 커밋됨) 바로 발행한다.
+     */
+    public void record(EntityManager em, List<EntityChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+            events.forEach(event -> record(session, event));
+        } else {
+            events.forEach(this::notifyRecorded);
+            publisher.ifAvailable(p -> p.publish(new EntityChangeBatch(events)));
+        }
+    }
+
+    private void notifyRecorded(EntityChangeEvent event) {
+        recordListeners.orderedStream().forEach(listener -> listener.onRecorded(event));
+    }
+
+    private void onChange(SharedSessionContractImplementor session, EntityChangeEvent.Type type, Object entity, Object id,
+                          EntityPersister persister, Object[] previousState, Object[] state) {
+        Class<?> entityType = Hibernate.getClass(entity);
+        if (isTracked(entityType)) {
+            record(session, EntityChangeEvent.of(type, entityType, id,
+                    basicValues(persister, previousState), basicValues(persister, state)));
+        }
+    }
+
+    /**
+     * 연관관계를 뺀 기본 속성만 이름 -> 값으로 담는다. (구독자 스레드에서 엔티티/프록시를 건드리지 않도록)
+     */
+    private static Map<String, Object> basicValues(EntityPersister persister, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (!types[i].isAssociationType()) {
+                values.put(names[i], state[i]);
+            }
+        }
+        return values;
+    }
+
+    private void publish(List<EntityChangeEvent> events, boolean success) {
+        if (success && !events.isEmpty()) {
+            publisher.ifAvailable(p -> p.publish(new EntityChangeBatch(events)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 엔티티 변경 한 건. 벌크 쿼리는 id 없이 영향받은 row 수와 쿼리를 담는다.
+ * 벌크라도 영향받은 id 를 알면(upsert, stateless 수정) ids 에, 쿼리의 이름 붙은 파라미터는 parameters 에 담는다. 모르면 null.
+ * previousState/state 는 연관관계를 뺀 기본 속성 값이며, 엔티티 이벤트가 아닌 경우(벌크, id 만 아는 삭제) null 이다.
+ */
+@Getter
+@ToString
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE, BULK_UPDATE, BULK_DELETE
+    }
+
+    private final Type type;
+    private final Class<?> entityType;
+    private final Object id;
+    private final int affectedRows;
+    private final String statement;
+    @ToString.Exclude
+    private final List<Object> ids;
+    @ToString.Exclude
+    private final Map<String, Object> parameters;
+    @ToString.Exclude
+    private final Map<String, Object> previousState;
+    @ToString.Exclude
+    private final Map<String, Object> state;
+
+    private EntityChangeEvent(Type type, Class<?> entityType, Object id, int affectedRows, String statement,
+                              List<Object> ids, Map<String, Object> parameters,
+                              Map<String, Object> previousState, Map<String, Object> state) {
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.affectedRows = affectedRows;
+        this.statement = statement;
+        this.ids = ids;
+        this.parameters = parameters;
+        this.previousState = previousState;
+        this.state = state;
+    }
+
+    public static EntityChangeEvent of(Type type, Class<?> entityType, Object id) {
+        return new EntityChangeEvent(type, entityType, id, 1, null, null, null, null, null);
+    }
+
+    public static EntityChangeEvent of(Type type, Class<?> entityType, Object id,
+                                       Map<String, Object> previousState, Map<String, Object> state) {
+        return new EntityChangeEvent(type, entityType, id, 1, null, null, null, previousState, state);
+    }
+
+    public static EntityChangeEvent bulk(Type type, Class<?> entityType, int affectedRows, String statement) {
+        return new EntityChangeEvent(type, entityType, null, affectedRows, statement, null, null, null, null);
+    }
+
+    public static EntityChangeEvent bulk(Type type, Class<?> entityType, int affectedRows, String statement,
+                                         Map<String, Object> parameters) {
+        return new EntityChangeEvent(type, entityType, null, affectedRows, statement, null, Map.copyOf(parameters), null, null);
+    }
+
+    public static EntityChangeEvent bulk(Type type, Class<?> entityType, String statement, Collection<?> ids) {
+        return new EntityChangeEvent(type, entityType, null, ids.size(), statement, List.copyOf(ids), null, null, null);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK_UPDATE || type == Type.BULK_DELETE;
+    }
+
+    /**
+     * 벌크 수정이 property 를 바꿀 수 있는지. JPQL update 의 set 절에 property 가 없으면 바꿀 수 없다.
+     * 쿼리 대신 메서드 이름만 남긴 벌크 수정(upsert, stateless 수정 등)은 바꿀 수 있다고 본다.
+     */
+    public boolean mayAssign(String property) {
+        if (type != Type.BULK_UPDATE) {
+            return false;
+        }
+        if (statement == null) {
+            return true;
+        }
+        String normalized = statement.trim().toLowerCase(Locale.ROOT);
+        int set = normalized.indexOf(" set ");
+        if (!normalized.startsWith("update") || set < 0) {
+            return true;
+        }
+        int where = normalized.indexOf(" where ", set);
+        String assignments = where < 0 ? normalized.substring(set) : normalized.substring(set, where);
+        return assignments.contains(property.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.event;
+
+/**
+ * 커밋된 변경 구독자. 스프링 빈으로 등록하면 EntityChangePublisher 가 구독자별 스레드에서 비동기로 호출한다.
+ * 큐가 넘쳐 배치를 잃으면 onMissedChanges 로 DB 에서 다시 만들게 하고, 그 뒤에는 이미 반영된 변경이 다시 올 수 있다.
+ */
+public interface EntityChangeListener {
+
+    void onChanges(EntityChangeBatch batch);
+
+    /**
+     * 버려진 배치가 있을 때 구독자 스레드에서 호출된다. DB 기준으로 상태를 다시 만든다.
+     */
+    void onMissedChanges();
+
+}
@@ -0,0 +1,139 @@
+package study.datajpa.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 커밋된 변경 배치를 구독자에게 전달한다.
+ * <p>
+ * 구독자마다 bounded 큐와 전용 스레드를 둔다. 커밋 스레드는 기다리지 않는다. (구독자가 여럿이라 기다리면 느린 구독자만큼 커밋이 늦어진다)
+ * 큐가 가득 차면 배치를 버리고 datajpa.entity-change.dropped 를 올린 뒤 그 구독자를 dirty 로 표시한다.
+ * dirty 구독자는 큐에 남은 배치를 버리고 EntityChangeListener#onMissedChanges 로 DB 에서 다시 만든 다음 이어서 받는다.
+ */
+@Slf4j
+@Component
+public class EntityChangePublisher implements DisposableBean {
+
+    private final List<Subscription> subscriptions;
+
+    public EntityChangePublisher(ObjectProvider<EntityChangeListener> listeners,
+                                 @Value("${datajpa.entity-change.queue-capacity:1024}") int queueCapacity,
+                                 MeterRegistry meterRegistry) {
+        this.subscriptions = listeners.orderedStream()
+                .map(listener -> new Subscription(listener, queueCapacity, meterRegistry))
+                .collect(Collectors.toList());
+    }
+
+    public void publish(EntityChangeBatch batch) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(batch);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (Subscription subscription : subscriptions) {
+            subscription.stop();
+        }
+    }
+
+    private static class Subscription implements Runnable {
+
+        private final EntityChangeListener listener;
+        private final BlockingQueue<EntityChangeBatch> queue;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final Counter delivered;
+        private final Counter dropped;
+        private final Counter failed;
+        private final Counter resynced;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        Subscription(EntityChangeListener listener, int capacity, MeterRegistry meterRegistry) {
+            String name = listener.getClass().getSimpleName();
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.delivered = meterRegistry.counter("datajpa.entity-change.delivered", "listener", name);
+            this.dropped = meterRegistry.counter("datajpa.entity-change.dropped", "listener", name);
+            this.failed = meterRegistry.counter("datajpa.entity-change.failed", "listener", name);
+            this.resynced = meterRegistry.counter("datajpa.entity-change.resynced", "listener", name);
+            meterRegistry.gaugeCollectionSize("datajpa.entity-change.queue", Tags.of("listener", name), queue);
+            this.thread = new Thread(this, "entity-change-" + name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void offer(EntityChangeBatch batch) {
+            if (dirty.get()) {
+                //어차피 다시 만들 구독자라 큐에 넣지 않는다.
+                dropped.increment();
+                return;
+            }
+            if (!queue.offer(batch)) {
+                dropped.increment();
+                dirty.set(true);
+                log.warn("entity change queue full, batch dropped and listener marked dirty. listener={}", listener.getClass().getSimpleName());
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    EntityChangeBatch batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (dirty.compareAndSet(true, false)) {
+                        //꺼낸 배치도 재구성 결과에 들어간다.
+                        resync();
+                        continue;
+                    }
+                    if (batch == null) {
+                        continue;
+                    }
+                    listener.onChanges(batch);
+                    delivered.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    log.error("entity change listener failed. listener={}", listener.getClass().getSimpleName(), e);
+                }
+            }
+        }
+
+        /**
+         * 큐에 남은 배치는 이미 커밋된 변경이라 재구성 결과에 들어가므로 버린다.
+         * 재구성 중에 들어오는 배치는 큐에 쌓였다가 이어서 적용된다. (구독자는 같은 변경을 다시 받아도 되게 만든다)
+         */
+        private void resync() {
+            queue.clear();
+            try {
+                listener.onMissedChanges();
+            } catch (RuntimeException e) {
+                //다음 poll 뒤에 다시 시도한다.
+                dirty.set(true);
+                throw e;
+            }
+            resynced.increment();
+            log.info("entity change listener resynced. listener={}", listener.getClass().getSimpleName());
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
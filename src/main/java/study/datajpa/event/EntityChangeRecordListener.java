@@ -0,0 +1,11 @@
+package study.datajpa.event;
+
+/**
+ * 변경이 기록되는 즉시(flush/벌크 쿼리 직후, 같은 스레드, 커밋 전) 받는 구독자.
+ * 변경을 놓치면 틀린 답을 주는 보수적 캐시(존재 여부 필터 등)용이다. 롤백돼도 취소 통지는 없으므로 구독자는 그만큼 보수적으로 다뤄야 한다.
+ * 커밋 후 비동기로 받는 일반 구독은 {@link EntityChangeListener}.
+ */
+public interface EntityChangeRecordListener {
+
+    void onRecorded(EntityChangeEvent event);
+}
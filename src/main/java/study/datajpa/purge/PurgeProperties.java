@@ -0,0 +1,49 @@
+package study.datajpa.purge;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.purge")
+public class PurgeProperties {
+
+    /**
+     * false 면 스케줄 실행을 건너뛴다. (수동 호출은 가능)
+     */
+    private boolean enabled = false;
+
+    /**
+     * 스케줄 cron. "-" 면 스케줄하지 않는다.
+     */
+    private String cron = "-";
+
+    /**
+     * 생성일(createDate) 기준 회원 보관기간
+     */
+    private Duration memberRetention = Duration.ofDays(365);
+
+    /**
+     * 생성일(createdDate) 기준 상품 보관기간
+     */
+    private Duration itemRetention = Duration.ofDays(90);
+
+    /**
+     * 한 트랜잭션에서 지울 최대 row 수
+     */
+    private int batchSize = 500;
+
+    /**
+     * 배치 사이 대기시간. 다른 트랜잭션에 락/IO 를 양보한다.
+     */
+    private Duration pause = Duration.ofMillis(50);
+
+    /**
+     * 한 번 실행의 최대 시간. 넘으면 남은 row 는 다음 실행으로 미룬다.
+     */
+    private Duration maxRuntime = Duration.ofMinutes(5);
+}
@@ -0,0 +1,23 @@
+package study.datajpa.purge;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class PurgeResult {
+
+    private final String target;
+    private final long deleted;
+    private final int batches;
+    private final long elapsedMillis;
+    private final boolean budgetExhausted;
+
+    public PurgeResult(String target, long deleted, int batches, long elapsedMillis, boolean budgetExhausted) {
+        this.target = target;
+        this.deleted = deleted;
+        this.batches = batches;
+        this.elapsedMillis = elapsedMillis;
+        this.budgetExhausted = budgetExhausted;
+    }
+}
@@ -0,0 +1,197 @@
+package study.datajpa.purge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.summary.TeamSummaryService;
+import study.datajpa.support.TeamMemberCountAdjuster;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 보관기간이 지난 회원/상품 삭제.
+ * <p>
+ * deleteAllInBatch 처럼 한 번에 지우지 않고 id 순서로 batchSize 만큼씩 짧은 트랜잭션으로 지운다.
+ * 배치 사이에 pause 만큼 쉬고, maxRuntime 을 넘기면 멈춘 뒤 남은 row 는 다음 실행에서 지운다.
+ * 회원 삭제는 벌크 쿼리이므로 team.member_count 도 같은 트랜잭션에서 차감한다.
+ */
+@Slf4j
+@Service
+public class RetentionPurgeService {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final PurgeProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TeamMemberCountAdjuster teamMemberCountAdjuster;
+    private final TeamSummaryService teamSummaryService;
+    private final EntityChangeCollector entityChangeCollector;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RetentionPurgeService(EntityManager em, PlatformTransactionManager transactionManager,
+                                 PurgeProperties properties, MeterRegistry meterRegistry,
+                                 TeamMemberCountAdjuster teamMemberCountAdjuster, TeamSummaryService teamSummaryService,
+                                 EntityChangeCollector entityChangeCollector) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.teamMemberCountAdjuster = teamMemberCountAdjuster;
+        this.teamSummaryService = teamSummaryService;
+        this.entityChangeCollector = entityChangeCollector;
+    }
+
+    @Scheduled(cron = "${datajpa.purge.cron:-}")
+    public void scheduledPurge() {
+        if (properties.isEnabled()) {
+            purgeAll();
+        }
+    }
+
+    /**
+     * 회원, 상품 순서로 삭제한다. 두 대상이 maxRuntime 을 나눠 쓴다.
+     */
+    public List<PurgeResult> purgeAll() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("purge already running, skipped");
+            return List.of();
+        }
+        try {
+            long deadline = System.nanoTime() + properties.getMaxRuntime().toNanos();
+            PurgeResult members = purgeMembers(deadline);
+            PurgeResult items = purgeItems(deadline);
+            return List.of(members, items);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public PurgeResult purgeMembers(long deadlineNanos) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMemberRetention());
+        return purge("member", deadlineNanos, lastId -> {
+            List<Long> ids = em.createQuery(
+                    "select m.id from Member m where m.id > :lastId and m.createDate < :cutoff order by m.id", Long.class)
+                    .setParameter("lastId", (Long) lastId)
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(properties.getBatchSize())
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return new Batch(0, null);
+            }
+
+            teamMemberCountAdjuster.beforeBulkDelete(ids);
+            teamSummaryService.beforeBulkDelete(ids);
+            int deleted = em.createQuery("delete from Member m where m.id in :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+            recordDeletes(Member.class, ids);
+            return new Batch(deleted, ids.get(ids.size() - 1));
+        }, 0L);
+    }
+
+    public PurgeResult purgeItems(long deadlineNanos) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getItemRetention());
+        return purge("item", deadlineNanos, lastId -> {
+            List<String> ids = em.createQuery(
+                    "select i.id from Item i where i.id > :lastId and i.createdDate < :cutoff order by i.id", String.class)
+                    .setParameter("lastId", (String) lastId)
+                    .setParameter("cutoff", cutoff)
+                    .setMaxResults(properties.getBatchSize())
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return new Batch(0, null);
+            }
+
+            int deleted = em.createQuery("delete from Item i where i.id in :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+            recordDeletes(Item.class, ids);
+            return new Batch(deleted, ids.get(ids.size() - 1));
+        }, "");
+    }
+
+    private PurgeResult purge(String target, long deadlineNanos, BatchDeleter deleter, Object firstId) {
+        Counter deletedCounter = meterRegistry.counter("datajpa.purge.deleted", "table", target);
+        Timer batchTimer = meterRegistry.timer("datajpa.purge.batch", "table", target);
+        long start = System.nanoTime();
+        long deleted = 0;
+        int batches = 0;
+        boolean budgetExhausted = false;
+        Object lastId = firstId;
+
+        while (true) {
+            if (System.nanoTime() >= deadlineNanos) {
+                budgetExhausted = true;
+                meterRegistry.counter("datajpa.purge.budget.exhausted", "table", target).increment();
+                break;
+            }
+
+            Object currentLastId = lastId;
+            Batch batch = batchTimer.record(() -> transactionTemplate.execute(status -> deleter.deleteAfter(currentLastId)));
+            if (batch.lastId == null) {
+                break;
+            }
+            deleted += batch.deleted;
+            batches++;
+            deletedCounter.increment(batch.deleted);
+            lastId = batch.lastId;
+
+            if (!pause()) {
+                break;
+            }
+        }
+
+        PurgeResult result = new PurgeResult(target, deleted, batches,
+                (System.nanoTime() - start) / 1_000_000, budgetExhausted);
+        log.info("purge finished. {}", result);
+        return result;
+    }
+
+    private void recordDeletes(Class<?> entityType, List<?> ids) {
+        entityChangeCollector.record(em, ids.stream()
+                .map(id -> EntityChangeEvent.of(EntityChangeEvent.Type.DELETE, entityType, id))
+                .collect(Collectors.toList()));
+    }
+
+    private boolean pause() {
+        long millis = properties.getPause().toMillis();
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private interface BatchDeleter {
+        Batch deleteAfter(Object lastId);
+    }
+
+    private static class Batch {
+
+        private final int deleted;
+        private final Object lastId;
+
+        Batch(int deleted, Object lastId) {
+            this.deleted = deleted;
+            this.lastId = lastId;
+        }
+    }
+}
@@ -14,7 +14,13 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, MemberStatelessRepository,
+        MemberUpsertRepository, JpaSpecificationExecutor<Member> {
+
+    /**
+     * bulkAgePlus 쿼리. 변경 이벤트 구독자(MemberColumnSnapshot)가 이 쿼리를 알아보고 영향받은 row 만 다시 읽는다.
+     */
+    String BULK_AGE_PLUS_QUERY = "update Member m set m.age = m.age + 1 where m.age >= :age";
 
     /**
      * where name = name and age > age
@@ -55,6 +61,13 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    /**
+     * 목록 화면용 dto 페이징. 팀 이름까지 쿼리 한 번에 가져오므로 응답을 그리는 동안 지연 로딩이 없다.
+     */
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtos(Pageable pageable);
+
     /**
      * 파라미터 바인딩(리스트)
      */
@@ -92,7 +105,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * 벌크성 수정 쿼리
      */
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query(BULK_AGE_PLUS_QUERY)
     int bulkAgePlus(@Param("age") int age);
 
     /**
@@ -144,11 +157,6 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      */
     List<UsernameOnly> findProjectionsByUsername(@Param("username") String username);
 
-    /**
-     * Projections(구체클래스) - 타입을 지정할 수 있다.
-     */
-    <T> List<T> findProjectionsDtoByUsername(@Param("username") String username, Class<T> type);
-
     /**
      * 네이티브 쿼리
      */
@@ -1,11 +1,46 @@
 package study.datajpa.repository;
 
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MultiGetResult;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
 
+    /**
+     * hot(member) 테이블에 없을 때만 member_archive 를 조회한다.
+     */
+    Optional<MemberDto> findMemberDtoByIdIncludingArchive(Long id);
+
+    /**
+     * 큰 이름 목록용 findByNames. 중복 제거 후 chunk 로 나누고 2의 거듭제곱으로 패딩해 실행한다.
+     * 트랜잭션 밖이면 chunk 를 병렬로 실행하며 결과는 준영속이다.
+     */
+    List<Member> findByNamesChunked(Collection<String> names);
+
+    /**
+     * 여러 id 를 요청 순서대로 조회한다. 영속성 컨텍스트에 이미 있는 회원은 쿼리하지 않고,
+     * 나머지는 datajpa.multi-get.batch-size 개씩 in 쿼리로 읽는다. 중복 id 는 한 번만 담는다.
+     */
+    MultiGetResult<Member> findAllByIdsOrdered(List<Long> ids);
+
+    /**
+     * findProjectionsByUsername 과 같은 결과를 엔티티 없이 만든다.
+     * 프로젝션의 @Value SpEL 을 select 식으로 컴파일해 두므로 열린 프로젝션도 닫힌 프로젝션처럼 필요한 값만 읽는다.
+     */
+    <T> List<T> findCompiledProjectionsByUsername(String username, Class<T> type);
+
+    /**
+     * Projections(구체클래스) - 타입을 지정할 수 있다.
+     * 인터페이스는 컴파일된 프로젝션(중첩 프로젝션은 필요한 컬럼만 join), 컴파일할 수 없으면 엔티티를 읽어 ProjectionFactory 로 감싼다.
+     * 클래스는 생성자 파라미터 이름의 속성만 select 하고
+     * 캐시된 생성자 MethodHandle 로 만든다.
+     */
+    <T> List<T> findProjectionsDtoByUsername(String username, Class<T> type);
+
 }
@@ -1,22 +1,172 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MultiGetResult;
 import study.datajpa.entity.Member;
+import study.datajpa.support.CompiledDtoProjection;
+import study.datajpa.support.CompiledProjection;
+import study.datajpa.support.DtoProjectionCompiler;
+import study.datajpa.support.InListQueryExecutor;
+import study.datajpa.support.OpenProjectionCompiler;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * memberRepository 인터페이스 이름하고 + Impl 로 구현체를 만들어야 한다.
  */
-@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final EntityManager em;
+    private final InListQueryExecutor inListQueryExecutor;
+    private final OpenProjectionCompiler projectionCompiler;
+    private final DtoProjectionCompiler dtoProjectionCompiler;
+    private final int multiGetBatchSize;
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    public MemberRepositoryImpl(EntityManager em, InListQueryExecutor inListQueryExecutor,
+                                OpenProjectionCompiler projectionCompiler, DtoProjectionCompiler dtoProjectionCompiler,
+                                @Value("${datajpa.multi-get.batch-size:100}") int multiGetBatchSize,
+                                BeanFactory beanFactory) {
+        this.em = em;
+        this.inListQueryExecutor = inListQueryExecutor;
+        this.projectionCompiler = projectionCompiler;
+        this.dtoProjectionCompiler = dtoProjectionCompiler;
+        this.multiGetBatchSize = multiGetBatchSize;
+        this.projectionFactory.setBeanFactory(beanFactory);
+    }
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public Optional<MemberDto> findMemberDtoByIdIncludingArchive(Long id) {
+        List<MemberDto> hot = em.createQuery(
+                "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t where m.id = :id", MemberDto.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (!hot.isEmpty()) {
+            return Optional.of(hot.get(0));
+        }
+
+        return em.createQuery(
+                "select new study.datajpa.dto.MemberDto(a.id, a.username, t.name)" +
+                        " from MemberArchive a left join Team t on t.id = a.teamId where a.id = :id", MemberDto.class)
+                .setParameter("id", id)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Member> findByNamesChunked(Collection<String> names) {
+        return inListQueryExecutor.execute(em, names, (entityManager, chunk) ->
+                entityManager.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MultiGetResult<Member> findAllByIdsOrdered(List<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Member> loaded = em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .withBatchSize(multiGetBatchSize)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .multiLoad(distinctIds);
+
+        List<Member> found = new ArrayList<>(distinctIds.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Member member = loaded.get(i);
+            if (member == null) {
+                missingIds.add(distinctIds.get(i));
+            } else {
+                found.add(member);
+            }
+        }
+        return new MultiGetResult<>(found, missingIds);
+    }
+
+    @Override
+    public <T> List<T> findCompiledProjectionsByUsername(String username, Class<T> type) {
+        return findByUsername(username, projectionCompiler.compile(type, Member.class, "m"));
+    }
+
+    private <T> List<T> findByUsername(String username, CompiledProjection<T> projection) {
+        List<Tuple> rows = em.createQuery("select " + projection.getSelectClause() +
+                " from Member m " + projection.getJoinClause() + " where m.username = :username", Tuple.class)
+                .setParameter("username", username)
+                .getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            result.add(projection.create(row));
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> findProjectionsDtoByUsername(String username, Class<T> type) {
+        if (type.isInterface() && !type.isAssignableFrom(Member.class)) {
+            Optional<CompiledProjection<T>> compiled = projectionCompiler.tryCompile(type, Member.class, "m");
+            if (compiled.isPresent()) {
+                return findByUsername(username, compiled.get());
+            }
+            //컴파일할 수 없는 프로젝션은 이전처럼 엔티티를 읽어 Spring Data 프록시로 감싼다.
+            List<Member> members = findEntitiesByUsername(username);
+            List<T> result = new ArrayList<>(members.size());
+            for (Member member : members) {
+                result.add(projectionFactory.createProjection(type, member));
+            }
+            return result;
+        }
+        if (type.isAssignableFrom(Member.class)) {
+            return (List<T>) findEntitiesByUsername(username);
+        }
+        CompiledDtoProjection<T> projection = dtoProjectionCompiler.compile(type, Member.class, "m");
+        String jpql = "select " + projection.getSelectClause() +
+                " from Member m " + projection.getJoinClause() + " where m.username = :username";
+        if (projection.getArity() == 1) {
+            //Hibernate 5 는 select 식이 하나면 Object[] 로 감싸지 않는다.
+            List<Object> values = em.createQuery(jpql, Object.class)
+                    .setParameter("username", username)
+                    .getResultList();
+            List<T> result = new ArrayList<>(values.size());
+            for (Object value : values) {
+                result.add(projection.create(new Object[]{value}));
+            }
+            return result;
+        }
+        List<Object[]> rows = em.createQuery(jpql, Object[].class)
+                .setParameter("username", username)
+                .getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(projection.create(row));
+        }
+        return result;
+    }
+
+    private List<Member> findEntitiesByUsername(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
 }
@@ -4,22 +4,23 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
-
-import javax.persistence.criteria.Join;
-import javax.persistence.criteria.JoinType;
+import study.datajpa.support.SemiJoins;
 
 import static antlr.build.ANTLR.root;
 
 public class MemberSpec {
 
+    /**
+     * 목록은 team 과 inner join, count 는 team_id in (이름이 같은 팀 id) 세미 조인으로 거른다.
+     */
     public static Specification<Member> teamName(final String teamname) {
         return (Specification<Member>) (root, query, builder) -> {
             if (StringUtils.isEmpty(teamname)) {
                 return null;
             }
 
-            Join<Member, Team> t = root.join("team", JoinType.INNER); //&#xD68C;&#xC6D0;&#xACFC; &#xC870;&#xC778;
-            return builder.equal(t.get("name"), teamname);
+            return SemiJoins.<Member, Team>toOne(root, query, builder, "team",
+                    (t, cb) -> cb.equal(t.get("name"), teamname)); //&#xD68C;&#xC6D0;&#xACFC; &#xC870;&#xC778;
         };
     }
 
@@ -0,0 +1,33 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Member;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 대량 작업용. Hibernate StatelessSession 으로 영속성 컨텍스트(스냅샷, 변경 감지, 1차 캐시) 없이 처리한다.
+ * 현재 트랜잭션의 커넥션을 같이 쓰므로 team.member_count, team_summary, 변경 이벤트는 같은 트랜잭션에서 맞춰진다.
+ * 영속성 컨텍스트를 거치지 않으므로 호출 전후로 같은 회원을 엔티티로 들고 있다면 다시 조회해야 한다.
+ */
+public interface MemberStatelessRepository {
+
+    /**
+     * 생성된 id 와 감사 컬럼이 members 에 채워진다.
+     */
+    int insertStateless(Collection<Member> members);
+
+    /**
+     * 준영속 회원을 변경 감지 없이 전체 컬럼 update 한다. 버전이 다르면 낙관적 락 예외.
+     */
+    int updateStateless(Collection<Member> members);
+
+    int deleteStatelessByIds(Collection<Long> ids);
+
+    /**
+     * id 순으로 전체 회원을 fetchSize 씩 읽어 consumer 에 넘긴다. 받은 회원의 team 은 초기화할 수 없다.
+     *
+     * @return 읽은 회원 수
+     */
+    long scrollStateless(int fetchSize, Consumer<Member> consumer);
+}
@@ -0,0 +1,163 @@
+package study.datajpa.repository;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.summary.TeamSummaryService;
+import study.datajpa.support.TeamMemberCountAdjuster;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class MemberStatelessRepositoryImpl implements MemberStatelessRepository {
+
+    private final EntityManager em;
+    private final ObjectProvider<AuditingHandler> auditingHandler;
+    private final TeamMemberCountAdjuster teamMemberCountAdjuster;
+    private final TeamSummaryService teamSummaryService;
+    private final EntityChangeCollector entityChangeCollector;
+
+    public MemberStatelessRepositoryImpl(EntityManager em, ObjectProvider<AuditingHandler> auditingHandler,
+                                         TeamMemberCountAdjuster teamMemberCountAdjuster,
+                                         TeamSummaryService teamSummaryService,
+                                         EntityChangeCollector entityChangeCollector) {
+        this.em = em;
+        this.auditingHandler = auditingHandler;
+        this.teamMemberCountAdjuster = teamMemberCountAdjuster;
+        this.teamSummaryService = teamSummaryService;
+        this.entityChangeCollector = entityChangeCollector;
+    }
+
+    @Override
+    @Transactional
+    public int insertStateless(Collection<Member> members) {
+        if (members.isEmpty()) {
+            return 0;
+        }
+        AuditingHandler auditing = auditingHandler.getObject();
+        Set<Long> teamIds = new TreeSet<>();
+        List<Object> ids = new ArrayList<>(members.size());
+        withStatelessSession(session -> {
+            for (Member member : members) {
+                auditing.markCreated(member);
+                ids.add(session.insert(member));
+                if (member.getTeam() != null) {
+                    teamIds.add(member.getTeam().getId());
+                }
+            }
+            return null;
+        });
+        afterTeamMembersChanged(teamIds);
+        //행마다 상태 Map 을 만들지 않고 id 만 담은 벌크 이벤트 하나로 알린다. (구독자가 필요한 값은 다시 읽는다)
+        entityChangeCollector.record(em, List.of(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE, Member.class,
+                "insertStateless", ids)));
+        return members.size();
+    }
+
+    @Override
+    @Transactional
+    public int updateStateless(Collection<Member> members) {
+        if (members.isEmpty()) {
+            return 0;
+        }
+        AuditingHandler auditing = auditingHandler.getObject();
+        Set<Long> teamIds = new TreeSet<>(em.createQuery(
+                "select distinct m.team.id from Member m where m.id in :ids and m.team is not null", Long.class)
+                .setParameter("ids", members.stream().map(Member::getId).collect(Collectors.toList()))
+                .getResultList());
+        withStatelessSession(session -> {
+            for (Member member : members) {
+                auditing.markModified(member);
+                session.update(member);
+                if (member.getTeam() != null) {
+                    teamIds.add(member.getTeam().getId());
+                }
+            }
+            return null;
+        });
+        afterTeamMembersChanged(teamIds);
+        entityChangeCollector.record(em, List.of(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE, Member.class,
+                "updateStateless", members.stream().map(Member::getId).collect(Collectors.toList()))));
+        return members.size();
+    }
+
+    @Override
+    @Transactional
+    public int deleteStatelessByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+        teamMemberCountAdjuster.beforeBulkDelete(ids);
+        teamSummaryService.beforeBulkDelete(ids);
+        int deleted = withStatelessSession(session -> session.createQuery("delete from Member m where m.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate());
+        entityChangeCollector.record(em, ids.stream()
+                .map(id -> EntityChangeEvent.of(EntityChangeEvent.Type.DELETE, Member.class, id))
+                .collect(Collectors.toList()));
+        return deleted;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scrollStateless(int fetchSize, Consumer<Member> consumer) {
+        return withStatelessSession(session -> {
+            long count = 0;
+            ScrollableResults results = session.createQuery("select m from Member m order by m.id", Member.class)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (results.next()) {
+                    consumer.accept((Member) results.get(0));
+                    count++;
+                }
+            } finally {
+                results.close();
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 현재 트랜잭션의 JDBC 커넥션 위에 StatelessSession 을 연다. 커밋/롤백과 커넥션 반납은 바깥 트랜잭션이 한다.
+     * 아직 flush 되지 않은 영속성 컨텍스트 변경을 먼저 내보내 순서를 맞춘다.
+     */
+    private <T> T withStatelessSession(Function<StatelessSession, T> work) {
+        Session session = em.unwrap(Session.class);
+        if (!session.isDefaultReadOnly()) {
+            session.flush();
+        }
+        Connection connection = session.doReturningWork(c -> c);
+        StatelessSession stateless = session.getSessionFactory()
+                .withStatelessOptions()
+                .connection(connection)
+                .openStatelessSession();
+        try {
+            return work.apply(stateless);
+        } finally {
+            stateless.close();
+        }
+    }
+
+    private void afterTeamMembersChanged(Set<Long> teamIds) {
+        teamMemberCountAdjuster.recount(teamIds);
+        teamSummaryService.recompute(teamIds);
+    }
+}
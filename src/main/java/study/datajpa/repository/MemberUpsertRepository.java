@@ -0,0 +1,18 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Member;
+
+import java.util.Collection;
+
+/**
+ * username 기준 일괄 upsert. 동기화 작업용.
+ */
+public interface MemberUpsertRepository {
+
+    /**
+     * username 이 있으면 age, team 을 바꾸고 없으면 새로 넣는다. 같은 username 이 여러 번 오면 마지막 값을 쓴다.
+     * members 는 값 전달용이며 영속 상태가 되지 않는다.
+     */
+    UpsertResult upsertByUsername(Collection<Member> members);
+}
@@ -0,0 +1,145 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.summary.TeamSummaryService;
+import study.datajpa.support.TeamMemberCountAdjuster;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * H2 MERGE INTO ... USING ... ON username 을 JDBC batch 로 실행한다.
+ * <p>
+ * KEY(username) 형태는 일치한 row 의 모든 컬럼(member_id, create_date 포함)을 덮어쓰므로 USING 형태로
+ * 일치하면 age, team_id, version, last_modified_* 만 바꾸고 없으면 생성 감사 컬럼까지 넣는다.
+ * 기존 row 는 먼저 select ... for update 로 잠가 insert/update 수를 센다.
+ * username 에 unique 제약이 없으므로 같은 새 username 을 동시에 upsert 하면 둘 다 insert 될 수 있다.
+ */
+public class MemberUpsertRepositoryImpl implements MemberUpsertRepository {
+
+    private static final String MERGE_SQL = "merge into member m using (select" +
+            " cast(? as bigint) as member_id, cast(? as varchar) as username, cast(? as int) as age," +
+            " cast(? as bigint) as team_id, cast(? as timestamp) as now, cast(? as varchar) as auditor) s" +
+            " on m.username = s.username" +
+            " when matched then update set m.age = s.age, m.team_id = s.team_id, m.version = m.version + 1," +
+            " m.last_modified_date = s.now, m.last_modified_by = s.auditor" +
+            " when not matched then insert (member_id, username, age, team_id, version," +
+            " create_date, last_modified_date, create_by, last_modified_by)" +
+            " values (s.member_id, s.username, s.age, s.team_id, 0, s.now, s.now, s.auditor, s.auditor)";
+
+    private final EntityManager em;
+    private final AuditorAware<String> auditorAware;
+    private final TeamMemberCountAdjuster teamMemberCountAdjuster;
+    private final TeamSummaryService teamSummaryService;
+    private final EntityChangeCollector entityChangeCollector;
+    private final int batchSize;
+
+    public MemberUpsertRepositoryImpl(EntityManager em, AuditorAware<String> auditorAware,
+                                      TeamMemberCountAdjuster teamMemberCountAdjuster,
+                                      TeamSummaryService teamSummaryService,
+                                      EntityChangeCollector entityChangeCollector,
+                                      @Value("${datajpa.upsert.batch-size:500}") int batchSize) {
+        this.em = em;
+        this.auditorAware = auditorAware;
+        this.teamMemberCountAdjuster = teamMemberCountAdjuster;
+        this.teamSummaryService = teamSummaryService;
+        this.entityChangeCollector = entityChangeCollector;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertByUsername(Collection<Member> members) {
+        Map<String, Member> byUsername = new LinkedHashMap<>();
+        for (Member member : members) {
+            if (member.getUsername() == null) {
+                throw new IllegalArgumentException("username is required for upsert");
+            }
+            byUsername.put(member.getUsername(), member);
+        }
+        if (byUsername.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+        em.flush();
+
+        List<?> existing = em.createNativeQuery("select username, team_id, member_id from member where username in (:usernames) for update")
+                .setParameter("usernames", byUsername.keySet())
+                .getResultList();
+        Set<String> existingUsernames = new TreeSet<>();
+        Set<Long> teamIds = new TreeSet<>();
+        List<Long> memberIds = new ArrayList<>(byUsername.size());
+        for (Object row : existing) {
+            Object[] columns = (Object[]) row;
+            existingUsernames.add((String) columns[0]);
+            memberIds.add(((Number) columns[2]).longValue());
+            if (columns[1] != null) {
+                teamIds.add(((Number) columns[1]).longValue());
+            }
+        }
+
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Member.class).getIdentifierGenerator();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+
+        List<Member> rows = new ArrayList<>(byUsername.values());
+        Map<String, Long> newIds = new LinkedHashMap<>();
+        for (Member member : rows) {
+            if (!existingUsernames.contains(member.getUsername())) {
+                newIds.put(member.getUsername(), ((Number) idGenerator.generate(session, member)).longValue());
+            }
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MERGE_SQL)) {
+                int batched = 0;
+                for (Member member : rows) {
+                    Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+                    if (teamId != null) {
+                        teamIds.add(teamId);
+                    }
+                    ps.setObject(1, newIds.get(member.getUsername()), Types.BIGINT);
+                    ps.setString(2, member.getUsername());
+                    ps.setInt(3, member.getAge());
+                    ps.setObject(4, teamId, Types.BIGINT);
+                    ps.setTimestamp(5, now);
+                    ps.setString(6, auditor);
+                    ps.addBatch();
+                    if (++batched == batchSize) {
+                        ps.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    ps.executeBatch();
+                }
+            }
+        });
+
+        teamMemberCountAdjuster.recount(teamIds);
+        teamSummaryService.recompute(teamIds);
+        memberIds.addAll(newIds.values());
+        entityChangeCollector.record(em, List.of(EntityChangeEvent.bulk(
+                EntityChangeEvent.Type.BULK_UPDATE, Member.class, "upsertByUsername", memberIds)));
+        return new UpsertResult(newIds.size(), rows.size() - newIds.size());
+    }
+}
@@ -1,7 +1,18 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import study.datajpa.dto.TeamDto;
 import study.datajpa.entity.Team;
 
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    /**
+     * 팀 목록(회원수 포함). member 테이블에 접근하지 않는다.
+     */
+    @Query(value = "select new study.datajpa.dto.TeamDto(t.id, t.name, t.memberCount) from Team t",
+            countQuery = "select count(t) from Team t")
+    Page<TeamDto> findTeamDtos(Pageable pageable);
 }
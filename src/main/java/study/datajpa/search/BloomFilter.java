@@ -0,0 +1,107 @@
+package study.datajpa.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom filter. 비트는 AtomicLongArray 에 두어 put 과 mightContain 을 락 없이 동시에 부를 수 있다.
+ * 64비트 해시 하나를 두 32비트로 나눠 h1 + i * h2 로 k 개 위치를 만든다. (Kirsch-Mitzenmacher)
+ */
+class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final long capacity;
+    private final AtomicLong entries = new AtomicLong();
+
+    private BloomFilter(long numBits, int numHashes, long capacity) {
+        this.bits = new AtomicLongArray((int) ((numBits + 63) >>> 6));
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.capacity = capacity;
+    }
+
+    /**
+     * capacity 개를 넣었을 때 오탐률이 falsePositiveRate 가 되도록 비트 수와 해시 수를 정한다.
+     */
+    static BloomFilter create(long capacity, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1). falsePositiveRate=" + falsePositiveRate);
+        }
+        capacity = Math.max(1, capacity);
+        long numBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        numBits = Math.max(64, Math.min(numBits, (long) Integer.MAX_VALUE * 64));
+        int numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * LN2));
+        return new BloomFilter(numBits, numHashes, capacity);
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, numBits);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+        entries.incrementAndGet();
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 넣은 횟수. 같은 값을 여러 번 넣으면 중복으로 센다.
+     */
+    long entries() {
+        return entries.get();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * 지금까지 넣은 수 기준 예상 오탐률 (1 - e^(-kn/m))^k
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) numHashes * entries.get() / numBits), numHashes);
+    }
+
+    /**
+     * FNV-1a 64 + splitmix64 마무리 섞기
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,272 @@
+package study.datajpa.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeBatch;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.event.EntityChangeListener;
+import study.datajpa.event.EntityChangeRecordListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Member.username 존재 여부 Bloom filter. 없는 username 조회를 DB 에 보내지 않기 위한 것이다.
+ * <p>
+ * 오탐(있을 수도 있음)은 허용하지만 미탐(있는데 없다고 함)은 안 되므로 보수적으로 다룬다.
+ * <ul>
+ *     <li>insert/username 변경은 기록 시점(EntityChangeRecordListener, 커밋 전)에 바로 넣는다.</li>
+ *     <li>username 을 알 수 없는 변경(username 을 바꿀 수 있는 벌크 수정, state 없는 insert)이 오면 stale 로 두고
+ *     재구성이 끝날 때까지 모든 조회를 DB 로 보낸다. 커밋 후(EntityChangeListener) 바로 다시 만든다.</li>
+ *     <li>삭제는 지울 수 없으므로 세어 두었다가 주기적으로 다시 만든다.</li>
+ *     <li>재구성 스캔에서 빠질 수 있는 진행 중 트랜잭션의 insert 는 최근 추가분(inFlightWindow)을 다시 넣어 메운다.</li>
+ * </ul>
+ * state 없는 UPDATE(write-behind 나이 증감)는 username 을 바꾸지 않는다고 본다.
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter implements EntityChangeListener, EntityChangeRecordListener {
+
+    public enum Lookup {
+        /**
+         * 확실히 없다
+         */
+        DEFINITE_MISS,
+        /**
+         * 있을 수도 있다
+         */
+        MAYBE,
+        /**
+         * 필터를 믿을 수 없어 판단하지 않았다
+         */
+        BYPASS
+    }
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameBloomFilterProperties properties;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<RecentAdd> recentAdds = new ArrayDeque<>();
+    private final AtomicInteger inFlightStaleChanges = new AtomicInteger();
+    private final AtomicLong deletes = new AtomicLong();
+    private volatile BloomFilter filter;
+    private volatile boolean stale = true;
+    private boolean rebuilding;
+    private boolean staleDuringRebuild;
+
+    private final Counter definiteMisses;
+    private final Counter maybes;
+    private final Counter bypasses;
+    private final Counter falsePositives;
+    private final Timer rebuildTimer;
+
+    public UsernameBloomFilter(EntityManager em, PlatformTransactionManager transactionManager,
+                               UsernameBloomFilterProperties properties, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.definiteMisses = meterRegistry.counter("datajpa.username-bloom.lookups", "result", "definite-miss");
+        this.maybes = meterRegistry.counter("datajpa.username-bloom.lookups", "result", "maybe");
+        this.bypasses = meterRegistry.counter("datajpa.username-bloom.lookups", "result", "bypass");
+        this.falsePositives = meterRegistry.counter("datajpa.username-bloom.false-positives");
+        this.rebuildTimer = meterRegistry.timer("datajpa.username-bloom.rebuild");
+        meterRegistry.gauge("datajpa.username-bloom.stale", this, f -> f.stale ? 1 : 0);
+        meterRegistry.gauge("datajpa.username-bloom.expected-fpp", this,
+                f -> f.filter == null ? 1 : f.filter.expectedFalsePositiveRate());
+        meterRegistry.gauge("datajpa.username-bloom.pending-deletes", deletes);
+    }
+
+    public Lookup lookup(String username) {
+        BloomFilter current = filter;
+        if (username == null || stale || current == null) {
+            bypasses.increment();
+            return Lookup.BYPASS;
+        }
+        if (current.mightContain(username)) {
+            maybes.increment();
+            return Lookup.MAYBE;
+        }
+        definiteMisses.increment();
+        return Lookup.DEFINITE_MISS;
+    }
+
+    /**
+     * MAYBE 였는데 DB 에 없었던 경우
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    @Override
+    public void onRecorded(EntityChangeEvent event) {
+        if (event.getEntityType() != Member.class) {
+            return;
+        }
+        switch (event.getType()) {
+            case INSERT:
+            case UPDATE:
+                String username = username(event.getState());
+                if (username != null) {
+                    add(username);
+                } else if (event.getType() == EntityChangeEvent.Type.INSERT) {
+                    markStale();
+                }
+                break;
+            case DELETE:
+                deletes.incrementAndGet();
+                break;
+            case BULK_DELETE:
+                deletes.addAndGet(Math.max(1, event.getAffectedRows()));
+                break;
+            case BULK_UPDATE:
+                if (event.mayAssign("username")) {
+                    markStale();
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void onMissedChanges() {
+        rebuild();
+    }
+
+    @Override
+    public void onChanges(EntityChangeBatch batch) {
+        boolean rebuild = batch.getEvents().stream()
+                .anyMatch(event -> event.getEntityType() == Member.class
+                        && event.mayAssign("username"));
+        if (rebuild || overCapacity()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${datajpa.username-bloom.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        if (stale || deletes.get() > 0 || overCapacity()) {
+            rebuild();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long deletesBefore = deletes.get();
+        synchronized (lock) {
+            rebuilding = true;
+            //커밋되지 않은 벌크 변경은 이번 스캔에 안 보일 수 있다.
+            staleDuringRebuild = inFlightStaleChanges.get() > 0;
+        }
+
+        BloomFilter rebuilt;
+        try {
+            rebuilt = transactionTemplate.execute(status -> load());
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                rebuilding = false;
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            pruneRecentAdds();
+            for (RecentAdd recent : recentAdds) {
+                rebuilt.put(recent.username);
+            }
+            filter = rebuilt;
+            stale = staleDuringRebuild;
+            rebuilding = false;
+        }
+        deletes.addAndGet(-deletesBefore);
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("username bloom filter rebuilt. entries={} capacity={} stale={} elapsedMillis={}",
+                rebuilt.entries(), rebuilt.capacity(), stale, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private BloomFilter load() {
+        long members = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        long capacity = Math.max(properties.getMinCapacity(), (long) (members * properties.getCapacityHeadroom()));
+        BloomFilter loaded = BloomFilter.create(capacity, properties.getFalsePositiveRate());
+        try (Stream<String> stream = em.createQuery(
+                "select m.username from Member m where m.username is not null", String.class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .getResultStream()) {
+            stream.forEach(loaded::put);
+        }
+        return loaded;
+    }
+
+    private void add(String username) {
+        synchronized (lock) {
+            BloomFilter current = filter;
+            if (current != null) {
+                current.put(username);
+            }
+            recentAdds.addLast(new RecentAdd(username, System.nanoTime()));
+            pruneRecentAdds();
+        }
+    }
+
+    private void markStale() {
+        synchronized (lock) {
+            stale = true;
+            if (rebuilding) {
+                staleDuringRebuild = true;
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlightStaleChanges.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlightStaleChanges.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void pruneRecentAdds() {
+        long cutoff = System.nanoTime() - properties.getInFlightWindow().toNanos();
+        while (!recentAdds.isEmpty() && recentAdds.peekFirst().addedNanos - cutoff < 0) {
+            recentAdds.pollFirst();
+        }
+    }
+
+    private boolean overCapacity() {
+        BloomFilter current = filter;
+        return current != null && current.entries() > current.capacity();
+    }
+
+    private static String username(Map<String, Object> values) {
+        return values == null ? null : (String) values.get("username");
+    }
+
+    private static class RecentAdd {
+
+        private final String username;
+        private final long addedNanos;
+
+        RecentAdd(String username, long addedNanos) {
+            this.username = username;
+            this.addedNanos = addedNanos;
+        }
+    }
+}
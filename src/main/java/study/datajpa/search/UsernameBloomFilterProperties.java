@@ -0,0 +1,29 @@
+package study.datajpa.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.username-bloom")
+public class UsernameBloomFilterProperties {
+
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * 재구성 시 현재 회원 수의 몇 배를 담을 수 있게 만들지. 넘치면 다음 주기에 다시 만든다.
+     */
+    private double capacityHeadroom = 2.0;
+
+    private long minCapacity = 1024;
+
+    /**
+     * 재구성 중 커밋되지 않아 스캔에서 빠질 수 있는 insert 를 다시 넣기 위해 최근 추가분을 들고 있는 시간.
+     * 가장 긴 트랜잭션보다 길어야 한다.
+     */
+    private Duration inFlightWindow = Duration.ofMinutes(10);
+}
@@ -0,0 +1,51 @@
+package study.datajpa.search;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+/**
+ * username 단건 조회 앞에서 UsernameBloomFilter 를 본다. 확실히 없으면 쿼리 없이 빈 결과를 돌려준다.
+ * 현재 트랜잭션에 아직 flush 되지 않은 변경이 있으면(필터에 반영 전) 필터를 보지 않는다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class UsernameExistenceAspect {
+
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final EntityManagerFactory emf;
+
+    @Around("execution(* study.datajpa.repository.MemberRepository.findOptionalByUsername(String))" +
+            " || execution(* study.datajpa.repository.MemberRepository.findMemberByUsername(String))")
+    public Object shortCircuitMiss(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (hasUnflushedChanges()) {
+            return joinPoint.proceed();
+        }
+        UsernameBloomFilter.Lookup lookup = usernameBloomFilter.lookup((String) joinPoint.getArgs()[0]);
+        boolean optional = ((MethodSignature) joinPoint.getSignature()).getReturnType() == Optional.class;
+        if (lookup == UsernameBloomFilter.Lookup.DEFINITE_MISS) {
+            return optional ? Optional.empty() : null;
+        }
+
+        Object result = joinPoint.proceed();
+        if (lookup == UsernameBloomFilter.Lookup.MAYBE && (result == null || Optional.empty().equals(result))) {
+            usernameBloomFilter.falsePositive();
+        }
+        return result;
+    }
+
+    private boolean hasUnflushedChanges() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        return holder != null && holder.getEntityManager().unwrap(Session.class).isDirty();
+    }
+}
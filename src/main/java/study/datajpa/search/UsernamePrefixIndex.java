@@ -0,0 +1,290 @@
+package study.datajpa.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeBatch;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.event.EntityChangeListener;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Member.username 자동완성용 메모리 prefix 인덱스.
+ * <p>
+ * 중복 제거·정렬된 String[] (+ 이름별 회원 수 int[]) 을 기본으로 두고,
+ * 커밋된 변경(EntityChangeListener)은 작은 delta(skip list)에 증감으로 쌓았다가 일정 크기가 되면 배열로 합친다.
+ * 조회는 이진탐색 + 두 정렬 목록 병합이라 DB 를 보지 않는다.
+ * <p>
+ * 변경은 회원 id 기준 "이 id 의 username 은 이제 X(또는 없음)" 로 적용한다. 회원별 현재 username 을 들고 있으므로
+ * id 만 아는 삭제(purge, archive, stateless 삭제)도 DB 없이 반영되고, 재구성 스캔에 이미 포함된 변경이 나중에 다시 와도
+ * 같은 값이라 두 번 세지 않는다. (배치는 커밋 순서대로 오므로 마지막 값이 남는다)
+ * DB 에서 다시 만드는 건 username 을 바꿀 수 있는 벌크 수정과 id 를 모르는 벌크 삭제뿐이다.
+ */
+@Slf4j
+@Component
+public class UsernamePrefixIndex implements EntityChangeListener {
+
+    private static final int MIN_COMPACT_THRESHOLD = 256;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile State state = State.build(new long[0], new String[0]);
+
+    public UsernamePrefixIndex(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * prefix 로 시작하는 username 을 사전순으로 최대 limit 개
+     */
+    public List<String> suggest(String prefix, int limit) {
+        State current = state;
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        String[] names = current.names;
+        int i = lowerBound(names, prefix);
+        Iterator<Map.Entry<String, Integer>> deltas = current.delta.tailMap(prefix, true).entrySet().iterator();
+        Map.Entry<String, Integer> delta = next(deltas, prefix);
+
+        while (result.size() < limit) {
+            String name = i < names.length && names[i].startsWith(prefix) ? names[i] : null;
+            if (name == null && delta == null) {
+                break;
+            }
+            int cmp = name == null ? 1 : delta == null ? -1 : name.compareTo(delta.getKey());
+            int count;
+            String candidate;
+            if (cmp < 0) {
+                candidate = name;
+                count = current.counts[i++];
+            } else if (cmp > 0) {
+                candidate = delta.getKey();
+                count = delta.getValue();
+                delta = next(deltas, prefix);
+            } else {
+                candidate = name;
+                count = current.counts[i++] + delta.getValue();
+                delta = next(deltas, prefix);
+            }
+            if (count > 0) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return state.names.length + state.delta.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${datajpa.username-index.rebuild-cron:-}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = transactionTemplate.execute(status -> {
+            List<Object[]> loaded = new ArrayList<>();
+            try (Stream<Object[]> stream = em.createQuery(
+                    "select m.id, m.username from Member m order by m.id", Object[].class)
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .getResultStream()) {
+                stream.forEach(loaded::add);
+            }
+            return loaded;
+        });
+        long[] ids = new long[rows.size()];
+        String[] usernames = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = (Long) rows.get(i)[0];
+            usernames[i] = (String) rows.get(i)[1];
+        }
+        state = State.build(ids, usernames);
+        log.info("username prefix index rebuilt. names={} elapsedMillis={}", state.names.length, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onMissedChanges() {
+        rebuild();
+    }
+
+    @Override
+    public synchronized void onChanges(EntityChangeBatch batch) {
+        for (EntityChangeEvent event : batch.getEvents()) {
+            if (event.getEntityType() != Member.class) {
+                continue;
+            }
+            if (event.getType() == EntityChangeEvent.Type.BULK_DELETE || event.mayAssign("username")) {
+                //이 배치의 나머지 변경도 스캔에 들어 있다.
+                rebuild();
+                return;
+            }
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    //state 없는 UPDATE(write-behind 나이 증감)는 username 을 바꾸지 않는다.
+                    if (event.getState() != null) {
+                        assign((Long) event.getId(), username(event.getState()));
+                    }
+                    break;
+                case DELETE:
+                    assign((Long) event.getId(), null);
+                    break;
+                default:
+                    break;
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * id 의 username 을 바꾼다. 이미 같은 값이면 아무것도 하지 않는다.
+     */
+    private void assign(Long id, String username) {
+        State current = state;
+        String before = current.usernameOf(id);
+        if (Objects.equals(before, username)) {
+            return;
+        }
+        adjust(current, before, -1);
+        adjust(current, username, 1);
+        current.overrides.put(id, Optional.ofNullable(username));
+    }
+
+    private static void adjust(State state, String username, int delta) {
+        if (username != null) {
+            state.delta.merge(username, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private void compactIfNeeded() {
+        State current = state;
+        int threshold = Math.max(MIN_COMPACT_THRESHOLD, current.ids.length / 16);
+        if (current.delta.size() <= threshold && current.overrides.size() <= threshold) {
+            return;
+        }
+        Map<Long, Optional<String>> overrides = new TreeMap<>(current.overrides);
+        long[] ids = new long[current.ids.length + overrides.size()];
+        String[] usernames = new String[ids.length];
+        int size = 0;
+        Iterator<Map.Entry<Long, Optional<String>>> changes = overrides.entrySet().iterator();
+        Map.Entry<Long, Optional<String>> change = changes.hasNext() ? changes.next() : null;
+        int i = 0;
+        while (i < current.ids.length || change != null) {
+            long baseId = i < current.ids.length ? current.ids[i] : Long.MAX_VALUE;
+            if (change != null && change.getKey() <= baseId) {
+                if (change.getValue().isPresent()) {
+                    ids[size] = change.getKey();
+                    usernames[size++] = change.getValue().get();
+                }
+                if (change.getKey() == baseId) {
+                    i++;
+                }
+                change = changes.hasNext() ? changes.next() : null;
+            } else {
+                ids[size] = baseId;
+                usernames[size++] = current.usernameAt(i++);
+            }
+        }
+        state = State.build(Arrays.copyOf(ids, size), Arrays.copyOf(usernames, size));
+    }
+
+    private static String username(Map<String, Object> values) {
+        return values == null ? null : (String) values.get("username");
+    }
+
+    private static Map.Entry<String, Integer> next(Iterator<Map.Entry<String, Integer>> deltas, String prefix) {
+        if (deltas.hasNext()) {
+            Map.Entry<String, Integer> entry = deltas.next();
+            if (entry.getKey().startsWith(prefix)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static int lowerBound(String[] names, String key) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 읽기는 state 하나만 보므로 base 와 delta 가 항상 같은 시점의 쌍이다.
+     * ids/nameOfId 는 id 순 회원별 username(names 의 인덱스, 없으면 -1), overrides 는 그 뒤 바뀐 값이다. (쓰기 락 안에서만 본다)
+     */
+    private static class State {
+
+        private final String[] names;
+        private final int[] counts;
+        private final long[] ids;
+        private final int[] nameOfId;
+        private final ConcurrentSkipListMap<String, Integer> delta = new ConcurrentSkipListMap<>();
+        private final Map<Long, Optional<String>> overrides = new HashMap<>();
+
+        private State(String[] names, int[] counts, long[] ids, int[] nameOfId) {
+            this.names = names;
+            this.counts = counts;
+            this.ids = ids;
+            this.nameOfId = nameOfId;
+        }
+
+        /**
+         * @param ids       id 오름차순
+         * @param usernames ids 와 같은 순서의 username (null 가능)
+         */
+        static State build(long[] ids, String[] usernames) {
+            //DB collation 과 무관하게 String.compareTo 순서로 정렬해야 이진탐색이 맞다.
+            String[] sorted = Arrays.stream(usernames).filter(Objects::nonNull).sorted().toArray(String[]::new);
+            String[] names = new String[sorted.length];
+            int[] counts = new int[sorted.length];
+            int size = 0;
+            for (String username : sorted) {
+                if (size > 0 && names[size - 1].equals(username)) {
+                    counts[size - 1]++;
+                } else {
+                    names[size] = username;
+                    counts[size++] = 1;
+                }
+            }
+            names = Arrays.copyOf(names, size);
+            counts = Arrays.copyOf(counts, size);
+
+            int[] nameOfId = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                nameOfId[i] = usernames[i] == null ? -1 : Arrays.binarySearch(names, usernames[i]);
+            }
+            return new State(names, counts, ids, nameOfId);
+        }
+
+        String usernameOf(long id) {
+            Optional<String> override = overrides.get(id);
+            if (override != null) {
+                return override.orElse(null);
+            }
+            int index = Arrays.binarySearch(ids, id);
+            return index < 0 ? null : usernameAt(index);
+        }
+
+        String usernameAt(int index) {
+            return nameOfId[index] < 0 ? null : names[nameOfId[index]];
+        }
+    }
+}
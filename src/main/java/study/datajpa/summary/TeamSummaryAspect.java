@@ -0,0 +1,25 @@
+package study.datajpa.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * bulkAgePlus 는 엔티티 이벤트가 없으므로 직후에 team_summary 를 맞춘다.
+ * 호출자 트랜잭션이 있으면 그 안에서, 없으면 별도 트랜잭션으로 반영된다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class TeamSummaryAspect {
+
+    private final TeamSummaryService teamSummaryService;
+
+    @AfterReturning(pointcut = "(execution(int study.datajpa.repository.MemberRepository.bulkAgePlus(int))" +
+            " || execution(int study.datajpa.repository.MemberJpaRepository.bulkAgePlus(int))) && args(age)",
+            argNames = "age")
+    public void afterBulkAgePlus(int age) {
+        teamSummaryService.afterBulkAgePlus(age);
+    }
+}
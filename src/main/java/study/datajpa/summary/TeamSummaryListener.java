@@ -0,0 +1,195 @@
+package study.datajpa.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.SessionAccumulator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Member 의 insert/update/delete 를 보고 team_summary 를 증분 갱신한다.
+ * <p>
+ * 트랜잭션 동안 팀별 (회원수, 나이합, 추가된 나이 min/max, 빠진 나이 min/max) 를 모았다가 커밋 직전에 team_id 순서로 반영한다.
+ * 회원수/나이합은 원자적 증감, min/max 는 추가분은 least/greatest 로 합치고,
+ * 빠진 나이가 현재 min/max 경계였던 팀만 member 테이블에서 다시 구한다.
+ * summary row 가 없는 팀(새 팀)은 member 테이블에서 계산해 넣는다.
+ */
+@Slf4j
+public class TeamSummaryListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String APPLY_DELTA_SQL = "update team_summary set" +
+            " member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?";
+    private static final String APPLY_DELTA_WITH_ADDED_SQL = "update team_summary set" +
+            " member_count = member_count + ?, age_sum = age_sum + ?," +
+            " min_age = least(coalesce(min_age, ?), ?), max_age = greatest(coalesce(max_age, ?), ?)" +
+            " where team_id = ?";
+    private static final String RECOMPUTE_MIN_MAX_SQL = "update team_summary s set" +
+            " min_age = (select min(m.age) from member m where m.team_id = s.team_id)," +
+            " max_age = (select max(m.age) from member m where m.team_id = s.team_id)" +
+            " where s.team_id = ? and (s.min_age >= ? or s.max_age <= ?)";
+    static final String INSERT_FROM_MEMBER_SQL = "insert into team_summary (team_id, member_count, age_sum, min_age, max_age)" +
+            " select ?, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+            " from member m where m.team_id = ?";
+    private static final String DELETE_SQL = "delete from team_summary where team_id = ?";
+
+    private final SessionAccumulator<Deltas> pending = SessionAccumulator.beforeCompletion(Deltas::new, Deltas::apply);
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltas(event.getSession()).add(teamId(persister, event.getState()), age(persister, event.getState()));
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).team((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            log.debug("member updated without old state, team_summary left to consistency check. id={}", event.getId());
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long oldTeamId = teamId(persister, event.getOldState());
+        Long newTeamId = teamId(persister, event.getState());
+        int oldAge = age(persister, event.getOldState());
+        int newAge = age(persister, event.getState());
+        if (!Objects.equals(oldTeamId, newTeamId) || oldAge != newAge) {
+            Deltas deltas = deltas(event.getSession());
+            deltas.remove(oldTeamId, oldAge);
+            deltas.add(newTeamId, newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            deltas(event.getSession()).remove(teamId(persister, event.getDeletedState()), age(persister, event.getDeletedState()));
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).deleteTeam((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private Deltas deltas(SharedSessionContractImplementor session) {
+        return pending.get(session);
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    private static class TeamDelta {
+
+        long count;
+        long ageSum;
+        Integer addedMin;
+        Integer addedMax;
+        Integer removedMin;
+        Integer removedMax;
+        boolean deleted;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+
+    private static class Deltas {
+
+        private final Map<Long, TeamDelta> teams = new TreeMap<>();
+
+        void team(Long teamId) {
+            teams.computeIfAbsent(teamId, id -> new TeamDelta());
+        }
+
+        void add(Long teamId, int age) {
+            if (teamId != null) {
+                teams.computeIfAbsent(teamId, id -> new TeamDelta()).add(age);
+            }
+        }
+
+        void remove(Long teamId, int age) {
+            if (teamId != null) {
+                teams.computeIfAbsent(teamId, id -> new TeamDelta()).remove(age);
+            }
+        }
+
+        void deleteTeam(Long teamId) {
+            teams.computeIfAbsent(teamId, id -> new TeamDelta()).deleted = true;
+        }
+
+        void apply(SessionImplementor session) {
+            if (teams.isEmpty()) {
+                return;
+            }
+            session.doWork(connection -> {
+                for (Map.Entry<Long, TeamDelta> entry : teams.entrySet()) {
+                    apply(connection, entry.getKey(), entry.getValue());
+                }
+            });
+        }
+
+        private void apply(Connection connection, Long teamId, TeamDelta delta) throws SQLException {
+            if (delta.deleted) {
+                execute(connection, DELETE_SQL, teamId);
+                return;
+            }
+
+            int updated = delta.addedMin == null
+                    ? execute(connection, APPLY_DELTA_SQL, delta.count, delta.ageSum, teamId)
+                    : execute(connection, APPLY_DELTA_WITH_ADDED_SQL, delta.count, delta.ageSum,
+                    delta.addedMin, delta.addedMin, delta.addedMax, delta.addedMax, teamId);
+            if (updated == 0) {
+                execute(connection, INSERT_FROM_MEMBER_SQL, teamId, teamId);
+                return;
+            }
+
+            if (delta.removedMin != null) {
+                execute(connection, RECOMPUTE_MIN_MAX_SQL, teamId, delta.removedMin, delta.removedMax);
+            }
+        }
+
+        private int execute(Connection connection, String sql, Object... params) throws SQLException {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                return ps.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package study.datajpa.summary;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * team_summary 관리. 엔티티 이벤트를 거치지 않는 벌크 변경 반영, 전체 재구성, 정합성 검사.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamSummaryService {
+
+    private static final String ACTUAL_SQL = "select t.team_id, count(m.member_id) as member_count," +
+            " coalesce(sum(m.age), 0) as age_sum, min(m.age) as min_age, max(m.age) as max_age" +
+            " from team t left join member m on m.team_id = t.team_id group by t.team_id";
+
+    private final EntityManager em;
+
+    /**
+     * 전체 재구성. member 테이블 GROUP BY 로 다시 만든다.
+     */
+    @Transactional
+    public int rebuild() {
+        em.createNativeQuery("delete from team_summary").executeUpdate();
+        int teams = em.createNativeQuery("insert into team_summary (team_id, member_count, age_sum, min_age, max_age) " + ACTUAL_SQL)
+                .executeUpdate();
+        log.info("team_summary rebuilt. teams={}", teams);
+        return teams;
+    }
+
+    /**
+     * 실제 값과 다른(또는 summary 가 없는) 팀과, 팀이 지워졌는데 남은 summary 의 team id 목록
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findInconsistentTeamIds() {
+        List<?> ids = em.createNativeQuery("select team_id from (" +
+                " select a.team_id from (" + ACTUAL_SQL + ") a" +
+                " left join team_summary s on s.team_id = a.team_id" +
+                " where s.team_id is null or s.member_count <> a.member_count or s.age_sum <> a.age_sum" +
+                " or not (s.min_age is not distinct from a.min_age) or not (s.max_age is not distinct from a.max_age)" +
+                " union" +
+                " select s.team_id from team_summary s where not exists (select 1 from team t where t.team_id = s.team_id)" +
+                ") x order by team_id")
+                .getResultList();
+        return ids.stream().map(id -> ((Number) id).longValue()).collect(Collectors.toList());
+    }
+
+    /**
+     * 어긋난 팀만 다시 계산한다.
+     */
+    @Transactional
+    public int repair() {
+        List<Long> teamIds = findInconsistentTeamIds();
+        if (teamIds.isEmpty()) {
+            return 0;
+        }
+        recompute(teamIds);
+        log.info("team_summary repaired. teams={}", teamIds);
+        return teamIds.size();
+    }
+
+    /**
+     * 지정한 팀의 summary 를 member 테이블에서 다시 계산한다. 회원 벌크 insert/update 후 같은 트랜잭션에서 호출.
+     * 없어진 팀의 summary 는 지우기만 한다.
+     */
+    @Transactional
+    public void recompute(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        em.createNativeQuery("delete from team_summary where team_id in (:ids)")
+                .setParameter("ids", teamIds)
+                .executeUpdate();
+        em.createNativeQuery("insert into team_summary (team_id, member_count, age_sum, min_age, max_age)" +
+                        " select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)" +
+                        " from team t left join member m on m.team_id = t.team_id where t.team_id in (:ids) group by t.team_id")
+                .setParameter("ids", teamIds)
+                .executeUpdate();
+    }
+
+    /**
+     * bulkAgePlus(age) 직후 같은 트랜잭션에서 호출.
+     * 수정 후 age >= age + 1 인 회원이 정확히 +1 된 회원이므로 팀별로 그 수만큼 age_sum 을 올리고 경계값을 옮긴다.
+     */
+    @Transactional
+    public void afterBulkAgePlus(int age) {
+        em.createNativeQuery("update team_summary s set" +
+                        " age_sum = age_sum + (select count(*) from member m where m.team_id = s.team_id and m.age >= ?)," +
+                        " min_age = case when min_age >= ? then min_age + 1 else min_age end," +
+                        " max_age = case when max_age >= ? then max_age + 1 else max_age end" +
+                        " where s.max_age >= ?")
+                .setParameter(1, age + 1)
+                .setParameter(2, age)
+                .setParameter(3, age)
+                .setParameter(4, age)
+                .executeUpdate();
+    }
+
+    /**
+     * 회원 벌크 삭제 직전에 같은 트랜잭션에서 호출. 삭제될 회원을 뺀 값으로 팀별 summary 를 맞춘다.
+     */
+    @Transactional
+    public void beforeBulkDelete(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        em.createNativeQuery("update team_summary s set" +
+                        " member_count = (select count(*) from member m where m.team_id = s.team_id and m.member_id not in (:ids))," +
+                        " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = s.team_id and m.member_id not in (:ids))," +
+                        " min_age = (select min(m.age) from member m where m.team_id = s.team_id and m.member_id not in (:ids))," +
+                        " max_age = (select max(m.age) from member m where m.team_id = s.team_id and m.member_id not in (:ids))" +
+                        " where s.team_id in (select distinct m.team_id from member m where m.member_id in (:ids))")
+                .setParameter("ids", memberIds)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.support;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AbstractOptimizer;
+import org.hibernate.id.enhanced.AccessCallback;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * pooled-lo 방식 id 블록 할당기. 시퀀스 값 하나가 [lo, lo + incrementSize) 블록이다.
+ * <p>
+ * Hibernate 기본 PooledLoOptimizer 는 id 하나마다 synchronized 를 잡는다.
+ * 여기서는 현재 블록 안의 id 는 AtomicLong 증가(lock-free)로 나눠 주고, 블록이 다 떨어졌을 때만
+ * 한 스레드가 시퀀스를 읽어 새 블록으로 바꾼다. 엔티티의 SequenceStyleGenerator optimizer 파라미터로 지정한다.
+ */
+public class BlockIdOptimizer extends AbstractOptimizer {
+
+    private volatile Block block;
+
+    public BlockIdOptimizer(Class returnClass, int incrementSize) {
+        super(returnClass, incrementSize);
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize must be positive: " + incrementSize);
+        }
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            Block current = block;
+            if (current != null) {
+                long id = current.next.getAndIncrement();
+                if (id < current.hi) {
+                    return toIdentifier(id);
+                }
+            }
+            synchronized (this) {
+                if (block == current) {
+                    long lo = callback.getNextValue().makeValue().longValue();
+                    block = new Block(lo, lo + getIncrementSize());
+                }
+            }
+        }
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        Block current = block;
+        return current == null ? null : holder(current.lo);
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private Serializable toIdentifier(long id) {
+        if (getReturnClass() == Long.class) {
+            return id;
+        }
+        return holder(id).makeValue();
+    }
+
+    private IntegralDataTypeHolder holder(long value) {
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(getReturnClass()).initialize(value);
+    }
+
+    private static class Block {
+
+        private final long lo;
+        private final long hi;
+        private final AtomicLong next;
+
+        Block(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+            this.next = new AtomicLong(lo);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.support;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * DtoProjectionCompiler 결과. select 절과 row -> DTO 생성자 호출을 가진다.
+ * 생성자는 (Object[])Object 모양의 MethodHandle 로 한 번만 만들어 두고,
+ * 값 타입이 이미 맞으면 변환 없이 row 배열을 그대로 넘긴다. (row 당 할당은 DTO 하나)
+ */
+public class CompiledDtoProjection<T> {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final Class<T> type;
+    private final String selectClause;
+    private final String joinClause;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle constructor;
+
+    CompiledDtoProjection(Class<T> type, String selectClause, String joinClause, Class<?>[] parameterTypes,
+                          MethodHandle constructor) {
+        this.type = type;
+        this.selectClause = selectClause;
+        this.joinClause = joinClause;
+        this.parameterTypes = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            this.parameterTypes[i] = ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]);
+        }
+        this.constructor = constructor;
+    }
+
+    /**
+     * "select " 뒤에 붙일 식 목록. 결과는 Object[] 로 받는다. (식이 하나면 Hibernate 가 값만 주므로 감싸서 넘긴다)
+     */
+    public String getSelectClause() {
+        return selectClause;
+    }
+
+    /**
+     * "from Entity alias " 뒤에 붙일 left join 목록. 연관 속성이 없으면 빈 문자열.
+     */
+    public String getJoinClause() {
+        return joinClause;
+    }
+
+    public int getArity() {
+        return parameterTypes.length;
+    }
+
+    public T create(Object[] row) {
+        Object[] arguments = row;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Object value = row[i];
+            if (value != null && !parameterTypes[i].isInstance(value)) {
+                if (arguments == row) {
+                    arguments = row.clone();
+                }
+                arguments[i] = CONVERSION_SERVICE.convert(value, parameterTypes[i]);
+            }
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(arguments));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to create " + type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.support;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import javax.persistence.Tuple;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OpenProjectionCompiler 결과. select/join 절과 row -> 프로젝션 프록시 변환을 가진다.
+ * getter 는 미리 변환해 둔 값 배열을 인덱스로 읽기만 한다.
+ */
+public class CompiledProjection<T> {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final Class<T> type;
+    private final Shape shape;
+    private final String selectClause;
+    private final String joinClause;
+
+    CompiledProjection(Class<T> type, Shape shape, String selectClause, String joinClause) {
+        this.type = type;
+        this.shape = shape;
+        this.selectClause = selectClause;
+        this.joinClause = joinClause;
+    }
+
+    /**
+     * "select " 뒤에 붙일 식 목록. 결과는 Tuple 로 받는다.
+     */
+    public String getSelectClause() {
+        return selectClause;
+    }
+
+    /**
+     * "from Entity alias " 뒤에 붙일 join 목록. 없으면 빈 문자열.
+     */
+    public String getJoinClause() {
+        return joinClause;
+    }
+
+    public T create(Tuple tuple) {
+        return type.cast(shape.create(tuple));
+    }
+
+    /**
+     * 프로젝션 인터페이스 하나. slot 은 tuple 컬럼 인덱스(Integer) 이거나 중첩 프로젝션(Shape) 이다.
+     * 중첩 프로젝션은 값이 모두 null 이면(left join 결과 없음) null 이다.
+     */
+    static class Shape {
+
+        private final Class<?> type;
+        private final Method[] methods;
+        private final Object[] slots;
+        private final boolean nullable;
+        private final Map<Method, Integer> indexes = new HashMap<>();
+
+        Shape(Class<?> type, Method[] methods, Object[] slots, boolean nullable) {
+            this.type = type;
+            this.methods = methods;
+            this.slots = slots;
+            this.nullable = nullable;
+            for (int i = 0; i < methods.length; i++) {
+                indexes.put(methods[i], i);
+            }
+        }
+
+        Object create(Tuple tuple) {
+            Object[] values = new Object[methods.length];
+            boolean allNull = true;
+            for (int i = 0; i < methods.length; i++) {
+                values[i] = slots[i] instanceof Shape
+                        ? ((Shape) slots[i]).create(tuple)
+                        : CONVERSION_SERVICE.convert(tuple.get((Integer) slots[i]), methods[i].getReturnType());
+                allNull &= values[i] == null;
+            }
+            if (nullable && allNull) {
+                return null;
+            }
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Integer index = indexes.get(method);
+                if (index != null) {
+                    return values[index];
+                }
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return Arrays.hashCode(values);
+                    case "toString":
+                        return type.getSimpleName() + Arrays.toString(values);
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Specification 페이징의 count 쿼리를 가볍게 만드는 리포지토리 기반 클래스.
+ * <ul>
+ *     <li>order by 를 지운다.</li>
+ *     <li>to-one left fetch join(목록 화면용)은 행을 거르지도 늘리지도 않으므로 지운다.</li>
+ *     <li>남은 join 이 모두 to-one 이면 행이 늘 수 없으므로 distinct 가 있어도 count(distinct) 대신 count 를 쓴다.</li>
+ * </ul>
+ * 조건에 쓰인 join 은 spec 이 만든 그대로 둔다. to-one 조건을 세미 조인으로 바꾸려면 spec 에서 {@link SemiJoins} 를 쓴다.
+ * fetch 를 Join 으로 캐스팅해 조건에 쓰는 spec 은 지원하지 않는다.
+ */
+@Slf4j
+public class CountOptimizingJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> {
+
+    private final EntityManager em;
+
+    public CountOptimizingJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.em = entityManager;
+    }
+
+    @Override
+    protected <S extends T> TypedQuery<Long> getCountQuery(@Nullable Specification<S> spec, Class<S> domainClass) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<S> root = query.from(domainClass);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, builder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+
+        int dropped = dropCountNeutralFetches(root.getFetches());
+        boolean requestedDistinct = query.isDistinct();
+        boolean distinct = requestedDistinct && multipliesRows(root);
+        query.select(distinct ? builder.countDistinct(root) : builder.count(root));
+        query.distinct(false);
+        query.orderBy(Collections.emptyList());
+        if (dropped > 0 || distinct != requestedDistinct) {
+            log.debug("count query optimized. entity={} droppedFetches={} distinct={}", domainClass.getSimpleName(), dropped, distinct);
+        }
+
+        TypedQuery<Long> countQuery = em.createQuery(query);
+        if (getRepositoryMethodMetadata() != null) {
+            getQueryHintsForCount().forEach(countQuery::setHint);
+        }
+        return countQuery;
+    }
+
+    /**
+     * to-one left fetch 중 하위도 모두 to-one left 인 것만 지운다.
+     */
+    private static int dropCountNeutralFetches(Set<? extends Fetch<?, ?>> fetches) {
+        int dropped = 0;
+        try {
+            for (Iterator<? extends Fetch<?, ?>> iterator = fetches.iterator(); iterator.hasNext(); ) {
+                Fetch<?, ?> fetch = iterator.next();
+                if (isCountNeutral(fetch)) {
+                    iterator.remove();
+                    dropped++;
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            //JPA 구현이 fetch 목록을 고칠 수 없게 돌려주면 그대로 둔다.
+        }
+        return dropped;
+    }
+
+    private static boolean isCountNeutral(Fetch<?, ?> fetch) {
+        if (fetch.getJoinType() != JoinType.LEFT || fetch.getAttribute().isCollection()) {
+            return false;
+        }
+        for (Fetch<?, ?> child : fetch.getFetches()) {
+            if (!isCountNeutral(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean multipliesRows(From<?, ?> from) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().isCollection() || multipliesRows(join)) {
+                return true;
+            }
+        }
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            if (fetch.getAttribute().isCollection() || (fetch instanceof From && multipliesRows((From<?, ?>) fetch))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
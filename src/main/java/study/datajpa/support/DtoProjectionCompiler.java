@@ -0,0 +1,122 @@
+package study.datajpa.support;
+
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 클래스 기반 DTO 프로젝션. DTO 타입 + select 모양별로 생성자 MethodHandle 을 한 번만 만들어 캐시한다.
+ * 생성자 파라미터는 {@code @ProjectionPath("team.name")} 이 있으면 그 경로로, 없으면 이름을 엔티티 속성 경로로 해석한다.
+ * (이름은 -parameters 컴파일 필요. 카멜 케이스로 나뉘는 teamName 은 team.name 이 되지만 teamname 은 @ProjectionPath 가 있어야 한다)
+ * 연관 엔티티의 속성은 left join 으로 읽으므로 연관이 없는 row 도 빠지지 않는다.
+ */
+@Component
+public class DtoProjectionCompiler {
+
+    private final Map<List<Object>, CompiledDtoProjection<?>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 파라미터가 모두 entityType 의 속성 경로인 public 생성자 중 파라미터가 가장 많은 것을 쓴다.
+     * 그런 생성자가 없으면 IllegalArgumentException.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompiledDtoProjection<T> compile(Class<T> dtoType, Class<?> entityType, String alias) {
+        return (CompiledDtoProjection<T>) cache.computeIfAbsent(List.of(dtoType, entityType, alias), key -> {
+            Constructor<?> selected = null;
+            List<String> selects = null;
+            Set<String> joins = null;
+            for (Constructor<?> constructor : dtoType.getConstructors()) {
+                List<String> paths = new ArrayList<>(constructor.getParameterCount());
+                Set<String> pathJoins = new LinkedHashSet<>();
+                if (paths(constructor, entityType, alias, paths, pathJoins)
+                        && (selected == null || paths.size() > selects.size())) {
+                    selected = constructor;
+                    selects = paths;
+                    joins = pathJoins;
+                }
+            }
+            if (selected == null) {
+                throw new IllegalArgumentException("no constructor of " + dtoType.getName()
+                        + " matches properties of " + entityType.getName() + ", use @ProjectionPath(\"path\") on parameters");
+            }
+            return create(dtoType, selected, selects, String.join(" ", joins));
+        });
+    }
+
+    /**
+     * select 식을 직접 준다. 식 개수와 파라미터 수가 같은 public 생성자가 하나여야 한다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompiledDtoProjection<T> compile(Class<T> dtoType, List<String> selects) {
+        return (CompiledDtoProjection<T>) cache.computeIfAbsent(List.of(dtoType, selects), key -> {
+            Constructor<?> selected = null;
+            for (Constructor<?> constructor : dtoType.getConstructors()) {
+                if (constructor.getParameterCount() == selects.size()) {
+                    if (selected != null) {
+                        throw new IllegalArgumentException("ambiguous constructors of " + dtoType.getName()
+                                + " for " + selects.size() + " arguments");
+                    }
+                    selected = constructor;
+                }
+            }
+            if (selected == null) {
+                throw new IllegalArgumentException("no constructor of " + dtoType.getName()
+                        + " with " + selects.size() + " arguments");
+            }
+            return create(dtoType, selected, selects, "");
+        });
+    }
+
+    /**
+     * 중간 경로(연관관계)는 alias_속성 이름으로 left join 하고 마지막 속성만 select 한다.
+     */
+    private static boolean paths(Constructor<?> constructor, Class<?> entityType, String alias,
+                                 List<String> paths, Set<String> joins) {
+        for (Parameter parameter : constructor.getParameters()) {
+            ProjectionPath projectionPath = parameter.getAnnotation(ProjectionPath.class);
+            if (projectionPath == null && !parameter.isNamePresent()) {
+                return false;
+            }
+            PropertyPath path;
+            try {
+                path = PropertyPath.from(projectionPath != null ? projectionPath.value() : parameter.getName(), entityType);
+            } catch (PropertyReferenceException e) {
+                return false;
+            }
+            String current = alias;
+            for (; path.hasNext(); path = path.next()) {
+                String joinAlias = current + "_" + path.getSegment();
+                joins.add("left join " + current + "." + path.getSegment() + " " + joinAlias);
+                current = joinAlias;
+            }
+            paths.add(current + "." + path.getSegment());
+        }
+        return true;
+    }
+
+    private static <T> CompiledDtoProjection<T> create(Class<T> dtoType, Constructor<?> constructor, List<String> selects,
+                                                        String joinClause) {
+        int arity = constructor.getParameterCount();
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflectConstructor(constructor)
+                    .asType(MethodType.genericMethodType(arity))
+                    .asSpreader(Object[].class, arity);
+            return new CompiledDtoProjection<>(dtoType, String.join(", ", selects), joinClause,
+                    constructor.getParameterTypes(), handle);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("constructor not accessible: " + constructor, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.support;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.summary.TeamSummaryListener;
+
+import java.util.List;
+
+/**
+ * Hibernate 이벤트 리스너 등록
+ */
+@Configuration
+public class HibernateListenerConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer listenerIntegrator(EntityChangeCollector entityChangeCollector) {
+        TeamMemberCountListener teamMemberCountListener = new TeamMemberCountListener();
+        TeamSummaryListener teamSummaryListener = new TeamSummaryListener();
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_INSERT, teamMemberCountListener);
+                registry.appendListeners(EventType.POST_UPDATE, teamMemberCountListener);
+                registry.appendListeners(EventType.POST_DELETE, teamMemberCountListener);
+                registry.appendListeners(EventType.POST_INSERT, teamSummaryListener);
+                registry.appendListeners(EventType.POST_UPDATE, teamSummaryListener);
+                registry.appendListeners(EventType.POST_DELETE, teamSummaryListener);
+                registry.appendListeners(EventType.POST_INSERT, entityChangeCollector);
+                registry.appendListeners(EventType.POST_UPDATE, entityChangeCollector);
+                registry.appendListeners(EventType.POST_DELETE, entityChangeCollector);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(integrator));
+    }
+}
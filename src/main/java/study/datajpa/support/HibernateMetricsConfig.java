@@ -0,0 +1,31 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 통계 중 쿼리 플랜 캐시 적중/실패를 메트릭으로 노출한다.
+ * 통계 수집은 요청마다 비용이 있어 datajpa.hibernate.statistics=true 일 때만 켜고 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.hibernate", name = "statistics", havingValue = "true")
+public class HibernateMetricsConfig {
+
+    @Bean
+    public MeterBinder queryPlanCacheMetrics(EntityManagerFactory emf) {
+        return registry -> {
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            FunctionCounter.builder("datajpa.hibernate.query-plan-cache.hits", statistics, Statistics::getQueryPlanCacheHitCount)
+                    .register(registry);
+            FunctionCounter.builder("datajpa.hibernate.query-plan-cache.misses", statistics, Statistics::getQueryPlanCacheMissCount)
+                    .register(registry);
+        };
+    }
+}
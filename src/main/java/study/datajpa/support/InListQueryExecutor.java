@@ -0,0 +1,110 @@
+package study.datajpa.support;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 큰 IN 절 쿼리 실행기.
+ * <p>
+ * 값을 중복 제거 후 chunkSize(2의 거듭제곱) 단위로 나눈다. 각 chunk 는 hibernate.query.in_clause_parameter_padding 으로
+ * 2의 거듭제곱 개수로 패딩되므로 목록 크기가 달라도 쿼리 플랜은 몇 개로 수렴한다.
+ * 트랜잭션 밖에서 chunk 가 여러 개면 chunk 마다 별도 EntityManager 로 병렬 실행한다. (결과는 준영속)
+ * 트랜잭션 안에서는 영속성 컨텍스트를 지키기 위해 호출자 EntityManager 로 순서대로 실행한다.
+ */
+@Component
+public class InListQueryExecutor implements DisposableBean {
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    public InListQueryExecutor(EntityManagerFactory emf,
+                               @Value("${datajpa.in-list.chunk-size:512}") int chunkSize,
+                               @Value("${datajpa.in-list.parallelism:4}") int parallelism) {
+        if (Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("chunkSize must be a power of two: " + chunkSize);
+        }
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "in-list-query-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <P, T> List<T> execute(EntityManager em, Collection<P> values, BiFunction<EntityManager, List<P>, List<T>> query) {
+        List<List<P>> chunks = chunk(values);
+        List<T> result = new ArrayList<>();
+        if (chunks.isEmpty()) {
+            return result;
+        }
+
+        if (chunks.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<P> chunk : chunks) {
+                result.addAll(query.apply(em, chunk));
+            }
+            return result;
+        }
+
+        List<Future<List<T>>> futures = new ArrayList<>(chunks.size());
+        for (List<P> chunk : chunks) {
+            futures.add(executor.submit(() -> {
+                EntityManager worker = emf.createEntityManager();
+                try {
+                    return query.apply(worker, chunk);
+                } finally {
+                    worker.close();
+                }
+            }));
+        }
+        for (Future<List<T>> future : futures) {
+            result.addAll(await(future));
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <P> List<List<P>> chunk(Collection<P> values) {
+        List<P> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<P>> chunks = new ArrayList<>((distinct.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("in-list query interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.support;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * 모든 리포지토리의 기반 클래스를 CountOptimizingJpaRepository 로 바꾼다.
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "study.datajpa.repository", repositoryBaseClass = CountOptimizingJpaRepository.class)
+public class JpaRepositoryConfig {
+}
@@ -0,0 +1,222 @@
+package study.datajpa.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.IntLiteral;
+import org.springframework.expression.spel.ast.LongLiteral;
+import org.springframework.expression.spel.ast.OpPlus;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 인터페이스 프로젝션을 JPQL select 식으로 컴파일한다.
+ * <p>
+ * Spring Data 의 열린 프로젝션(@Value SpEL)은 엔티티 전체를 읽고 getter 호출마다 SpEL 을 리플렉션으로 평가한다.
+ * 여기서는 처음 한 번 SpEL AST 를 select 식으로 바꿔 두고(target.x -> alias.x, 문자열 + -> concat, 숫자 + -> +),
+ * 결과 row 를 배열 조회만 하는 프록시로 감싼다. 지원하지 않는 식이면 IllegalArgumentException.
+ * (default 메서드, target.x 와 + 이외의 SpEL, 컬렉션 속성) {@link #tryCompile} 은 이 경우 빈 값을 돌려준다.
+ * 중첩 닫힌 프로젝션(TeamInfo getTeam())은 연관 엔티티 전체 대신 필요한 컬럼만 left join 으로 읽는다.
+ * null 을 더하는 경우는 SpEL("null") 이 아니라 DB 규칙을 따른다.
+ */
+@Component
+public class OpenProjectionCompiler {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private final Metamodel metamodel;
+    private final Map<List<Object>, CompiledProjection<?>> cache = new ConcurrentHashMap<>();
+    private final Set<List<Object>> unsupported = ConcurrentHashMap.newKeySet();
+
+    public OpenProjectionCompiler(EntityManagerFactory emf) {
+        this.metamodel = emf.getMetamodel();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompiledProjection<T> compile(Class<T> projectionType, Class<?> entityType, String alias) {
+        return (CompiledProjection<T>) cache.computeIfAbsent(List.of(projectionType, entityType, alias),
+                key -> doCompile(projectionType, entityType, alias));
+    }
+
+    /**
+     * 컴파일할 수 없는 프로젝션이면 빈 값. 호출자는 엔티티 조회 + ProjectionFactory 로 대신 처리한다. 실패도 기억해 두고 다시 컴파일하지 않는다.
+     */
+    public <T> Optional<CompiledProjection<T>> tryCompile(Class<T> projectionType, Class<?> entityType, String alias) {
+        List<Object> key = List.of(projectionType, entityType, alias);
+        if (unsupported.contains(key)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(compile(projectionType, entityType, alias));
+        } catch (IllegalArgumentException e) {
+            unsupported.add(key);
+            return Optional.empty();
+        }
+    }
+
+    private <T> CompiledProjection<T> doCompile(Class<T> projectionType, Class<?> entityType, String alias) {
+        List<String> selects = new ArrayList<>();
+        List<String> joins = new ArrayList<>();
+        CompiledProjection.Shape shape = shape(projectionType, entityType, alias, selects, joins, false);
+        return new CompiledProjection<>(projectionType, shape, String.join(", ", selects), String.join(" ", joins));
+    }
+
+    /**
+     * 중첩 인터페이스(연관관계)는 left join 하나와 그 인터페이스가 쓰는 컬럼만 select 한다.
+     */
+    private CompiledProjection.Shape shape(Class<?> projectionType, Class<?> entityType, String alias,
+                                           List<String> selects, List<String> joins, boolean nullable) {
+        if (!projectionType.isInterface()) {
+            throw new IllegalArgumentException("projection must be an interface: " + projectionType.getName());
+        }
+        List<Method> methods = new ArrayList<>();
+        List<Object> slots = new ArrayList<>();
+        for (Method method : projectionType.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (method.isDefault() || method.getParameterCount() > 0 || method.getReturnType() == void.class) {
+                throw new IllegalArgumentException("unsupported projection method: " + method);
+            }
+            methods.add(method);
+            Value value = method.getAnnotation(Value.class);
+            if (value != null) {
+                slots.add(selects.size());
+                selects.add(translate(parse(value.value()), entityType, alias, joins).jpql);
+                continue;
+            }
+
+            String property = propertyName(method);
+            Attribute<?, ?> attribute = metamodel.managedType(entityType).getAttribute(property);
+            if (attribute.isCollection()) {
+                throw new IllegalArgumentException("unsupported projection method: " + method);
+            }
+            Class<?> returnType = method.getReturnType();
+            if (attribute.isAssociation() && !attribute.isCollection()
+                    && returnType.isInterface() && !returnType.isAssignableFrom(attribute.getJavaType())) {
+                String joinAlias = join(joins, alias, property);
+                slots.add(shape(returnType, attribute.getJavaType(), joinAlias, selects, joins, true));
+            } else {
+                slots.add(selects.size());
+                selects.add(alias + "." + property);
+            }
+        }
+        return new CompiledProjection.Shape(projectionType, methods.toArray(new Method[0]), slots.toArray(), nullable);
+    }
+
+    private static SpelNode parse(String template) {
+        String expression = template.trim();
+        if (!expression.startsWith("#{") || !expression.endsWith("}")) {
+            throw new IllegalArgumentException("unsupported projection expression: " + template);
+        }
+        try {
+            return PARSER.parseRaw(expression.substring(2, expression.length() - 1)).getAST();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("unsupported projection expression: " + template, e);
+        }
+    }
+
+    private Term translate(SpelNode node, Class<?> entityType, String alias, List<String> joins) {
+        if (node instanceof StringLiteral) {
+            String literal = (String) ((StringLiteral) node).getLiteralValue().getValue();
+            return new Term("'" + literal.replace("'", "''") + "'", String.class);
+        }
+        if (node instanceof IntLiteral || node instanceof LongLiteral) {
+            return new Term(node.toStringAST(), node instanceof IntLiteral ? Integer.class : Long.class);
+        }
+        if (node instanceof CompoundExpression) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < node.getChildCount(); i++) {
+                if (!(node.getChild(i) instanceof PropertyOrFieldReference)) {
+                    throw new IllegalArgumentException("unsupported projection expression: " + node.toStringAST());
+                }
+                names.add(((PropertyOrFieldReference) node.getChild(i)).getName());
+            }
+            if (!"target".equals(names.get(0))) {
+                throw new IllegalArgumentException("unsupported projection expression: " + node.toStringAST());
+            }
+            return path(entityType, alias, names.subList(1, names.size()), joins);
+        }
+        if (node instanceof OpPlus && node.getChildCount() == 2) {
+            Term left = translate(node.getChild(0), entityType, alias, joins);
+            Term right = translate(node.getChild(1), entityType, alias, joins);
+            if (left.type == String.class || right.type == String.class) {
+                return new Term("concat(" + left.jpql + ", " + right.jpql + ")", String.class);
+            }
+            return new Term("(" + left.jpql + " + " + right.jpql + ")", Number.class);
+        }
+        throw new IllegalArgumentException("unsupported projection expression: " + node.toStringAST());
+    }
+
+    /**
+     * target.a.b 의 중간 연관관계는 left join 으로 따라간다. (묵시적 경로 m.a.b 는 inner join 이라 a 가 null 인 회원이 빠진다)
+     */
+    private Term path(Class<?> entityType, String alias, List<String> names, List<String> joins) {
+        ManagedType<?> type = metamodel.managedType(entityType);
+        Class<?> javaType = entityType;
+        String current = alias;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            Attribute<?, ?> attribute = type.getAttribute(name);
+            if (attribute.isCollection()) {
+                throw new IllegalArgumentException("unsupported projection expression: target." + String.join(".", names));
+            }
+            javaType = attribute.getJavaType();
+            if (i == names.size() - 1) {
+                current = current + "." + name;
+            } else {
+                current = attribute.isAssociation() ? join(joins, current, name) : current + "." + name;
+                type = metamodel.managedType(javaType);
+            }
+        }
+        return new Term(current, javaType);
+    }
+
+    /**
+     * 같은 연관관계를 중첩 프로젝션과 SpEL 경로가 함께 써도 join 은 하나만 둔다.
+     */
+    private static String join(List<String> joins, String path, String property) {
+        String joinAlias = path.replace('.', '_') + "_" + property;
+        String join = "left join " + path + "." + property + " " + joinAlias;
+        if (!joins.contains(join)) {
+            joins.add(join);
+        }
+        return joinAlias;
+    }
+
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            throw new IllegalArgumentException("unsupported projection method: " + method);
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static class Term {
+
+        private final String jpql;
+        private final Class<?> type;
+
+        Term(String jpql, Class<?> type) {
+            this.jpql = jpql;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 낙관적 락(@Version) 충돌 시 트랜잭션을 새로 열어 재시도한다.
+ * 시도마다 새 트랜잭션(REQUIRES_NEW)을 사용하므로 기존 트랜잭션 밖에서 호출해야 한다.
+ * 대기시간은 지수 백오프 + full jitter.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetryTemplate(PlatformTransactionManager transactionManager,
+                                       @Value("${datajpa.optimistic-retry.max-attempts:10}") int maxAttempts,
+                                       @Value("${datajpa.optimistic-retry.initial-backoff-millis:1}") long initialBackoffMillis,
+                                       @Value("${datajpa.optimistic-retry.max-backoff-millis:50}") long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(TransactionCallback<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("optimistic lock retry exhausted. attempts={}", attempt);
+                    throw e;
+                }
+                log.debug("optimistic lock conflict. attempt={}", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void executeWithoutResult(Runnable action) {
+        execute(status -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while backing off", e);
+        }
+    }
+}
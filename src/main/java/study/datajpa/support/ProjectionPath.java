@@ -0,0 +1,16 @@
+package study.datajpa.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DTO 생성자 파라미터가 읽을 엔티티 속성 경로. (예: "team.name") DtoProjectionCompiler 가 이 경로로 select 와 left join 을 만든다.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ProjectionPath {
+
+    String value();
+}
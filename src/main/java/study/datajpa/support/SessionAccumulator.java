@@ -0,0 +1,68 @@
+package study.datajpa.support;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Hibernate 이벤트 리스너가 세션(트랜잭션)마다 값을 모았다가 트랜잭션 끝에 한 번에 처리할 때 쓴다.
+ * <p>
+ * 세션에서 처음 {@link #get} 할 때 값을 만들고 action queue 에 완료 콜백을 건다.
+ * 커밋 직전(beforeCompletion) 또는 완료 후(afterCompletion, 성공 여부 전달)에 값을 넘기고, 어느 쪽이든 세션 항목은 치운다.
+ * 커밋 직전 콜백에서 다시 이벤트가 나도 새 값으로 모이도록 콜백 호출 전에 먼저 치운다.
+ */
+public class SessionAccumulator<T> {
+
+    private final Map<SharedSessionContractImplementor, T> pending = new ConcurrentHashMap<>();
+    private final Supplier<T> factory;
+    private final BiConsumer<T, SessionImplementor> beforeCompletion;
+    private final BiConsumer<T, Boolean> afterCompletion;
+
+    private SessionAccumulator(Supplier<T> factory, BiConsumer<T, SessionImplementor> beforeCompletion,
+                               BiConsumer<T, Boolean> afterCompletion) {
+        this.factory = factory;
+        this.beforeCompletion = beforeCompletion;
+        this.afterCompletion = afterCompletion;
+    }
+
+    /**
+     * 커밋 직전, 같은 트랜잭션 안에서 처리한다. (롤백되면 호출되지 않거나 함께 롤백된다)
+     */
+    public static <T> SessionAccumulator<T> beforeCompletion(Supplier<T> factory, BiConsumer<T, SessionImplementor> callback) {
+        return new SessionAccumulator<>(factory, callback, null);
+    }
+
+    /**
+     * 트랜잭션이 끝난 뒤 성공 여부와 함께 처리한다.
+     */
+    public static <T> SessionAccumulator<T> afterCompletion(Supplier<T> factory, BiConsumer<T, Boolean> callback) {
+        return new SessionAccumulator<>(factory, null, callback);
+    }
+
+    public T get(SharedSessionContractImplementor session) {
+        return pending.computeIfAbsent(session, this::register);
+    }
+
+    private T register(SharedSessionContractImplementor session) {
+        T value = factory.get();
+        if (beforeCompletion != null) {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s -> {
+                pending.remove(s);
+                beforeCompletion.accept(value, s);
+            });
+        }
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            pending.remove(s);
+            if (afterCompletion != null) {
+                afterCompletion.accept(value, success);
+            }
+        });
+        return value;
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 엔티티 이벤트를 거치지 않는 회원 벌크 변경용. 같은 트랜잭션에서 호출해 team.member_count 를 맞춘다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountAdjuster {
+
+    private final EntityManager em;
+
+    public void beforeBulkDelete(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> teamCounts = em.createQuery(
+                "select m.team.id, count(m) from Member m where m.id in :ids and m.team is not null" +
+                        " group by m.team.id order by m.team.id", Object[].class)
+                .setParameter("ids", memberIds)
+                .getResultList();
+        for (Object[] teamCount : teamCounts) {
+            em.createNativeQuery("update team set member_count = member_count - ? where team_id = ?")
+                    .setParameter(1, teamCount[1])
+                    .setParameter(2, teamCount[0])
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * 지정한 팀의 member_count 를 member 테이블 기준으로 다시 센다. 회원 벌크 insert/update 후 호출.
+     * 세는 동안 다른 트랜잭션의 member_count ±1 이 끼어들어 덮어써지지 않도록 team row 를 id 순서로 먼저 잠근다.
+     * (±1 을 건 트랜잭션이 아직 커밋 전이면 잠금에서 기다렸다가 그 회원까지 센다)
+     */
+    public void recount(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        em.createNativeQuery("select team_id from team where team_id in (:ids) order by team_id for update")
+                .setParameter("ids", teamIds)
+                .getResultList();
+        em.createNativeQuery("update team t set member_count = (select count(*) from member m where m.team_id = t.team_id)" +
+                        " where t.team_id in (:ids)")
+                .setParameter("ids", teamIds)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,97 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Member 의 insert/update/delete 를 보고 team.member_count 를 맞춘다.
+ * 트랜잭션 동안 팀별 증감을 모았다가 커밋 직전에 team_id 순서로
+ * {@code update team set member_count = member_count + ?} 를 배치 실행한다. (read-modify-write 없음)
+ * 벌크 쿼리(deleteAllInBatch 등)나 엔티티를 거치지 않는 변경은 TeamMemberCountReconciler 가 보정한다.
+ */
+@Slf4j
+public class TeamMemberCountListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String UPDATE_SQL = "update team set member_count = member_count + ? where team_id = ?";
+
+    /**
+     * 세션별 team_id -> 증감
+     */
+    private final SessionAccumulator<Map<Long, Long>> pending = SessionAccumulator.beforeCompletion(TreeMap::new, this::apply);
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getState()), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            log.debug("member updated without old state, member_count left to reconciliation. id={}", event.getId());
+            return;
+        }
+        Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+        Long newTeamId = teamId(event.getPersister(), event.getState());
+        if (!Objects.equals(oldTeamId, newTeamId)) {
+            add(event.getSession(), oldTeamId, -1);
+            add(event.getSession(), newTeamId, 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(event.getSession(), teamId(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(SharedSessionContractImplementor session, Long teamId, long delta) {
+        if (teamId == null) {
+            return;
+        }
+        pending.get(session).merge(teamId, delta, Long::sum);
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        int index = persister.getEntityMetamodel().getPropertyIndex("team");
+        Object team = state[index];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private void apply(Map<Long, Long> deltas, SessionImplementor session) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_SQL)) {
+                for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                    ps.setLong(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+/**
+ * team.member_count 가 실제 회원 수와 어긋난 팀만 다시 계산한다.
+ * 벌크 삭제/수정처럼 엔티티 이벤트를 거치지 않는 변경 후 호출하거나 cron 으로 주기 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountReconciler {
+
+    private final EntityManager em;
+
+    @Transactional
+    @Scheduled(cron = "${datajpa.team-member-count.reconcile-cron:-}")
+    public int reconcile() {
+        int repaired = em.createNativeQuery(
+                "update team t set member_count = (select count(*) from member m where m.team_id = t.team_id)" +
+                        " where t.member_count <> (select count(*) from member m where m.team_id = t.team_id)")
+                .executeUpdate();
+        if (repaired > 0) {
+            log.info("team.member_count drift repaired. teams={}", repaired);
+        }
+        return repaired;
+    }
+}
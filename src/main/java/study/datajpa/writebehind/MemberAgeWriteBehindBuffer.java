@@ -0,0 +1,171 @@
+package study.datajpa.writebehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeCollector;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.summary.TeamSummaryService;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 나이 증감 write-behind 버퍼.
+ * <p>
+ * increment 는 회원 id 별 누적값에 더하기만 한다. (ConcurrentHashMap.merge - 전역 락 없이 bin 단위)
+ * flushInterval 마다(또는 대기 회원이 maxPending 을 넘으면 바로) 누적값을 떼어 내 회원 id 순으로
+ * update member set age = age + ? 를 JDBC batch 로 보낸다. 같은 회원에 대한 수천 번의 증감이 update 한 줄이 된다.
+ * version 도 올리므로 그 사이 엔티티로 읽어 수정하던 트랜잭션은 낙관적 락으로 충돌한다.
+ * 반영에 실패하면 떼어 낸 누적값을 다시 돌려 놓고 다음 주기에 재시도한다. 종료 시 남은 값을 반영한다.
+ */
+@Slf4j
+@Component
+public class MemberAgeWriteBehindBuffer implements DisposableBean {
+
+    private static final String UPDATE_SQL = "update member set age = age + ?, version = version + 1 where member_id = ?";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final TeamSummaryService teamSummaryService;
+    private final EntityChangeCollector entityChangeCollector;
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Counter increments;
+    private final Counter flushedRows;
+    private final Counter batches;
+    private final Counter failures;
+    private final Timer flushTimer;
+
+    public MemberAgeWriteBehindBuffer(EntityManager em, PlatformTransactionManager transactionManager,
+                                      WriteBehindProperties properties, TeamSummaryService teamSummaryService,
+                                      EntityChangeCollector entityChangeCollector, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.teamSummaryService = teamSummaryService;
+        this.entityChangeCollector = entityChangeCollector;
+        this.increments = meterRegistry.counter("datajpa.write-behind.increments");
+        this.flushedRows = meterRegistry.counter("datajpa.write-behind.flushed-rows");
+        this.batches = meterRegistry.counter("datajpa.write-behind.batches");
+        this.failures = meterRegistry.counter("datajpa.write-behind.failures");
+        this.flushTimer = meterRegistry.timer("datajpa.write-behind.flush");
+        meterRegistry.gaugeMapSize("datajpa.write-behind.pending", Tags.empty(), pending);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-age-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getFlushInterval().toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void increment(Long memberId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        pending.merge(memberId, (long) delta, Long::sum);
+        increments.increment();
+        if (pending.size() >= properties.getMaxPending() && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 지금까지 모인 증감을 반영한다.
+     *
+     * @return update 한 회원 수
+     */
+    public synchronized int flush() {
+        flushRequested.set(false);
+        Map<Long, Long> drained = new TreeMap<>();
+        for (Long memberId : pending.keySet()) {
+            Long delta = pending.remove(memberId);
+            if (delta != null && delta != 0) {
+                drained.put(memberId, delta);
+            }
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> write(drained)));
+        } catch (RuntimeException e) {
+            drained.forEach((memberId, delta) -> pending.merge(memberId, delta, Long::sum));
+            failures.increment();
+            throw e;
+        }
+        flushedRows.increment(drained.size());
+        return drained.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member age write-behind flush failed, will retry. pending={}", pending.size(), e);
+        }
+    }
+
+    private void write(Map<Long, Long> deltas) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(UPDATE_SQL)) {
+                int batched = 0;
+                for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                    ps.setLong(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                    ps.addBatch();
+                    if (++batched == properties.getBatchSize()) {
+                        ps.executeBatch();
+                        batches.increment();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    ps.executeBatch();
+                    batches.increment();
+                }
+            }
+        });
+
+        List<Long> memberIds = new ArrayList<>(deltas.keySet());
+        List<Long> teamIds = em.createQuery(
+                "select distinct m.team.id from Member m where m.id in :ids and m.team is not null", Long.class)
+                .setParameter("ids", memberIds)
+                .getResultList();
+        teamSummaryService.recompute(teamIds);
+        entityChangeCollector.record(em, memberIds.stream()
+                .map(id -> EntityChangeEvent.of(EntityChangeEvent.Type.UPDATE, Member.class, id))
+                .collect(Collectors.toList()));
+    }
+}
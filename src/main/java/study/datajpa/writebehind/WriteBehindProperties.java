@@ -0,0 +1,29 @@
+package study.datajpa.writebehind;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "datajpa.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * 모인 증감을 DB 에 반영하는 주기. 증감이 DB 에 보이기까지의 최대 지연이다.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 대기 중인 회원 수가 이만큼 쌓이면 주기를 기다리지 않고 바로 반영한다.
+     */
+    private int maxPending = 10_000;
+
+    /**
+     * JDBC batch 한 번에 보낼 update 수
+     */
+    private int batchSize = 500;
+}
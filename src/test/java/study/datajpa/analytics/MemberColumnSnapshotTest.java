@@ -0,0 +1,167 @@
+package study.datajpa.analytics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.event.EntityChangeBatch;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class MemberColumnSnapshotTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    /**
+     * 빈으로 등록된 스냅샷은 비동기로 변경을 받으므로, 구독하지 않는 인스턴스로 검증한다.
+     */
+    MemberColumnSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        AnalyticsProperties properties = new AnalyticsProperties();
+        properties.setParallelism(2);
+        snapshot = new MemberColumnSnapshot(em, transactionManager, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshot.destroy();
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rebuildAndAggregate() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 15, teamA));
+        memberRepository.save(new Member("member3", 25, teamB));
+        memberRepository.save(new Member("member4", 40));
+
+        //when
+        snapshot.rebuild();
+
+        //then
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.countAgeAtLeast(15)).isEqualTo(3);
+        assertThat(snapshot.ageHistogram(10)).containsExactly(entry(10, 2L), entry(20, 1L), entry(40, 1L));
+        assertThat(snapshot.teamAgeCrossTab(10)).containsOnly(
+                entry(teamA.getId(), new TreeMap<>(Map.of(10, 2L))),
+                entry(teamB.getId(), new TreeMap<>(Map.of(20, 1L))));
+    }
+
+    @Test
+    void outlierAge() {
+        //given 나이 하나가 범위를 int 전체로 넓힌다.
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 15, teamA));
+        memberRepository.save(new Member("member3", Integer.MAX_VALUE, teamA));
+
+        //when
+        snapshot.rebuild();
+
+        //then
+        int outlierStart = Integer.MAX_VALUE / 10 * 10;
+        assertThat(snapshot.ageHistogram(10)).containsExactly(entry(10, 2L), entry(outlierStart, 1L));
+        assertThat(snapshot.ageHistogram(1)).containsExactly(entry(10, 1L), entry(15, 1L), entry(Integer.MAX_VALUE, 1L));
+        assertThat(snapshot.teamAgeCrossTab(10)).containsOnly(
+                entry(teamA.getId(), new TreeMap<>(Map.of(10, 2L, outlierStart, 1L))));
+    }
+
+    @Test
+    void incremental() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("member2", 20, teamA));
+        snapshot.rebuild();
+
+        //when
+        Member member3 = memberRepository.save(new Member("member3", 55, teamA));
+        member1.setAge(30);
+        memberRepository.save(member1);
+        memberRepository.delete(member2);
+        snapshot.onChanges(new EntityChangeBatch(List.of(
+                EntityChangeEvent.of(EntityChangeEvent.Type.INSERT, Member.class, member3.getId()),
+                EntityChangeEvent.of(EntityChangeEvent.Type.UPDATE, Member.class, member1.getId()),
+                EntityChangeEvent.of(EntityChangeEvent.Type.DELETE, Member.class, member2.getId()))));
+
+        //then
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.countAgeAtLeast(20)).isEqualTo(2);
+        assertThat(snapshot.ageHistogram(10)).containsExactly(entry(30, 1L), entry(50, 1L));
+        assertThat(snapshot.teamAgeCrossTab(10).get(teamA.getId())).containsExactly(entry(30, 1L), entry(50, 1L));
+    }
+
+    @Test
+    void bulkAgePlusRereadsOnlyAgedMembers() {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 20));
+        snapshot.rebuild();
+        memberRepository.save(new Member("member3", 5)); //이벤트 없이 넣어 두면 전체 재적재 여부가 보인다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(15));
+
+        //when
+        snapshot.onChanges(new EntityChangeBatch(List.of(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE,
+                Member.class, 1, MemberRepository.BULK_AGE_PLUS_QUERY, Map.<String, Object>of("age", 15)))));
+
+        //then
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.countAgeAtLeast(21)).isEqualTo(1);
+        assertThat(snapshot.ageHistogram(10)).containsExactly(entry(10, 1L), entry(20, 1L));
+    }
+
+    @Test
+    void bulkUpdateWithoutAgeOrTeamIsSkipped() {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        snapshot.rebuild();
+        memberRepository.save(new Member("member2", 20));
+
+        //when
+        snapshot.onChanges(new EntityChangeBatch(List.of(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE,
+                Member.class, 1, "update Member m set m.username = :username where m.id = :id"))));
+
+        //then
+        assertThat(snapshot.size()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidBucket() {
+        assertThatThrownBy(() -> snapshot.ageHistogram(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.archive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberArchiveRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "datajpa.archive.inactive-after=0s",
+        "datajpa.archive.batch-size=2"
+})
+class MemberArchiverTest {
+
+    @Autowired
+    MemberArchiver memberArchiver;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberArchiveRepository memberArchiveRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        memberArchiveRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void archive() {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        Member member1 = memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 20, team));
+        memberRepository.save(new Member("member3", 30));
+
+        //when
+        long archived = memberArchiver.archiveInactiveMembers();
+
+        //then
+        assertThat(archived).isEqualTo(3);
+        assertThat(memberRepository.count()).isEqualTo(0);
+        assertThat(memberArchiveRepository.count()).isEqualTo(3);
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(0);
+
+        MemberDto findMember = memberRepository.findMemberDtoByIdIncludingArchive(member1.getId()).get();
+        assertThat(findMember.getUsername()).isEqualTo("member1");
+        assertThat(findMember.getTeamname()).isEqualTo("teamA");
+    }
+
+    @Test
+    void hotFirst() {
+        //given
+        Member member = memberRepository.save(new Member("member1", 10));
+
+        //when
+        MemberDto findMember = memberRepository.findMemberDtoByIdIncludingArchive(member.getId()).get();
+
+        //then
+        assertThat(findMember.getUsername()).isEqualTo("member1");
+        assertThat(memberRepository.findMemberDtoByIdIncludingArchive(-1L)).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "datajpa.batch.workers=4",
+        "datajpa.batch.partition-size=10",
+        "datajpa.batch.chunk-size=3"
+})
+class MemberPartitionedBatchProcessorTest {
+
+    static final String JOB = "agePlusJob";
+
+    @Autowired
+    MemberPartitionedBatchProcessor batchProcessor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        batchProcessor.reset(JOB);
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void run() {
+        //given
+        for (int i = 0; i < 35; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+
+        //when
+        BatchReport report = batchProcessor.run(JOB, member -> member.setAge(member.getAge() + 1));
+        report.getPartitions().forEach(System.out::println);
+
+        //then
+        assertThat(report.hasFailures()).isFalse();
+        assertThat(report.getProcessedCount()).isEqualTo(35);
+        assertThat(report.getPartitions().size()).isGreaterThan(1);
+        List<Member> members = memberRepository.findAll();
+        assertThat(members).extracting(Member::getAge).containsOnly(11);
+    }
+
+    @Test
+    void restart() {
+        //given
+        for (int i = 0; i < 35; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        String failUsername = "member20";
+        BatchReport failed = batchProcessor.run(JOB, member -> {
+            if (member.getUsername().equals(failUsername)) {
+                throw new IllegalStateException("crash");
+            }
+            member.setAge(member.getAge() + 1);
+        });
+
+        //when
+        BatchReport restarted = batchProcessor.run(JOB, member -> member.setAge(member.getAge() + 1));
+
+        //then
+        assertThat(failed.hasFailures()).isTrue();
+        assertThat(restarted.hasFailures()).isFalse();
+        assertThat(failed.getProcessedCount() + restarted.getProcessedCount()).isEqualTo(35);
+        assertThat(memberRepository.findAll()).extracting(Member::getAge).containsOnly(11);
+    }
+
+    @Test
+    void concurrentRunsDoNotProcessTwice() {
+        //given 체크포인트만 만들어 둔다.
+        for (int i = 0; i < 35; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        batchProcessor.run(JOB, member -> {
+            throw new IllegalStateException("not yet");
+        });
+
+        //when
+        CompletableFuture<BatchReport> first = CompletableFuture.supplyAsync(() ->
+                batchProcessor.run(JOB, member -> member.setAge(member.getAge() + 1)));
+        CompletableFuture<BatchReport> second = CompletableFuture.supplyAsync(() ->
+                batchProcessor.run(JOB, member -> member.setAge(member.getAge() + 1)));
+
+        //then
+        assertThat(first.join().hasFailures()).isFalse();
+        assertThat(second.join().hasFailures()).isFalse();
+        assertThat(first.join().getProcessedCount() + second.join().getProcessedCount()).isEqualTo(35);
+        assertThat(memberRepository.findAll()).extracting(Member::getAge).containsOnly(11);
+    }
+}
@@ -0,0 +1,102 @@
+package study.datajpa.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 벤치마크 공통 유틸. 스레드 수 별로 같은 작업을 반복 실행하고 처리량과 지연시간 분포를 계산한다.
+ */
+public class BenchmarkSupport {
+
+    public interface Operation {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    public static Result runConcurrently(int threads, int opsPerThread, Operation operation) throws InterruptedException {
+        long[] latencies = new long[threads * opsPerThread];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < opsPerThread; i++) {
+                            long begin = System.nanoTime();
+                            try {
+                                operation.run(thread, i);
+                            } catch (Exception e) {
+                                failures.incrementAndGet();
+                            }
+                            latencies[thread * opsPerThread + i] = System.nanoTime() - begin;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+            return new Result(threads, latencies, elapsed, failures.get());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public static long time(Runnable runnable) {
+        long begin = System.nanoTime();
+        runnable.run();
+        return System.nanoTime() - begin;
+    }
+
+    public static class Result {
+
+        private final int threads;
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final int failures;
+
+        Result(int threads, long[] latencies, long elapsedNanos, int failures) {
+            this.threads = threads;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("threads=%2d ops/s=%10.1f p50=%8.3fms p99=%8.3fms p99.9=%8.3fms max=%8.3fms failures=%d",
+                    threads, throughput(), percentileMillis(50), percentileMillis(99), percentileMillis(99.9),
+                    percentileMillis(100), failures);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.analytics.MemberColumnSnapshot;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 같은 집계(나이 이상 회원 수, 나이 분포, 팀별 나이 분포)를 member 테이블 group by 쿼리와 메모리 컬럼 스냅샷으로 비교한다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ColumnSnapshotBenchmark {
+
+    static final int MEMBERS = 500_000;
+    static final int TEAMS = 100;
+    static final int ITERATIONS = 20;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberColumnSnapshot snapshot;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void aggregate() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(teamRepository.save(new Team("team" + i)));
+        }
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 100, teams.get(i % TEAMS)));
+        }
+        memberRepository.insertStateless(members);
+
+        long rebuild = BenchmarkSupport.time(snapshot::rebuild);
+        System.out.printf("snapshot rebuild rows=%d elapsed=%8.1fms%n", MEMBERS, rebuild / 1_000_000.0);
+
+        measure("sql      count age >= 50", () -> transactionTemplate.execute(status -> em.createQuery(
+                "select count(m) from Member m where m.age >= :age", Long.class)
+                .setParameter("age", 50).getSingleResult()));
+        measure("snapshot count age >= 50", () -> snapshot.countAgeAtLeast(50));
+        measure("sql      age histogram  ", () -> transactionTemplate.execute(status -> em.createQuery(
+                "select m.age / 10, count(m) from Member m group by m.age / 10", Object[].class).getResultList()));
+        measure("snapshot age histogram  ", () -> snapshot.ageHistogram(10));
+        measure("sql      team x age     ", () -> transactionTemplate.execute(status -> em.createQuery(
+                "select m.team.id, m.age / 10, count(m) from Member m group by m.team.id, m.age / 10", Object[].class)
+                .getResultList()));
+        measure("snapshot team x age     ", () -> snapshot.teamAgeCrossTab(10));
+    }
+
+    private static void measure(String name, Runnable runnable) {
+        //warm up
+        for (int i = 0; i < 3; i++) {
+            runnable.run();
+        }
+        long nanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            nanos += BenchmarkSupport.time(runnable);
+        }
+        System.out.printf("%s rows=%d avg=%8.3fms%n", name, MEMBERS, nanos / ITERATIONS / 1_000_000.0);
+    }
+}
@@ -0,0 +1,108 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.support.DefaultConversionService;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.UsernameOnlyDto;
+import study.datajpa.support.CompiledDtoProjection;
+import study.datajpa.support.DtoProjectionCompiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 백만 row 의 DTO 생성 비용. DB 를 빼고 row(Object[]) -> DTO 변환만 잰다.
+ * reflective: row 마다 생성자를 찾고 값을 변환해 Constructor.newInstance (기존 방식에 해당)
+ * cached: 캐시한 Constructor.newInstance
+ * compiled: DtoProjectionCompiler 의 MethodHandle
+ * JMH 가 없으므로 warm up 후 여러 번 반복한 평균을 출력한다.
+ */
+@Tag("benchmark")
+class DtoInstantiationBenchmark {
+
+    static final int ROWS = 1_000_000;
+    static final int ROUNDS = 5;
+
+    final DtoProjectionCompiler compiler = new DtoProjectionCompiler();
+
+    @Test
+    void usernameOnlyDto() throws Exception {
+        Object[][] rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + (i % 1000)};
+        }
+        CompiledDtoProjection<UsernameOnlyDto> compiled = compiler.compile(UsernameOnlyDto.class, List.of("m.username"));
+        Constructor<UsernameOnlyDto> constructor = UsernameOnlyDto.class.getConstructor(String.class);
+
+        run("UsernameOnlyDto reflective", rows, row -> reflective(UsernameOnlyDto.class, row));
+        run("UsernameOnlyDto cached    ", rows, row -> newInstance(constructor, row));
+        run("UsernameOnlyDto compiled  ", rows, compiled::create);
+        assertThat(compiled.create(rows[0]).getUsername()).isEqualTo("member0");
+    }
+
+    @Test
+    void memberDto() throws Exception {
+        Object[][] rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{(long) i, "member" + (i % 1000), "team" + (i % 10)};
+        }
+        CompiledDtoProjection<MemberDto> compiled = compiler.compile(MemberDto.class, List.of("m.id", "m.username", "t.name"));
+        Constructor<MemberDto> constructor = MemberDto.class.getConstructor(Long.class, String.class, String.class);
+
+        run("MemberDto reflective      ", rows, row -> reflective(MemberDto.class, row));
+        run("MemberDto cached          ", rows, row -> newInstance(constructor, row));
+        run("MemberDto compiled        ", rows, compiled::create);
+        assertThat(compiled.create(rows[1]).getTeamname()).isEqualTo("team1");
+    }
+
+    private static void run(String name, Object[][] rows, Function<Object[], Object> factory) {
+        //warm up
+        consume(rows, factory);
+        consume(rows, factory);
+
+        long allocatedBefore = allocatedBytes();
+        long nanos = BenchmarkSupport.time(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                consume(rows, factory);
+            }
+        });
+        long allocated = allocatedBytes() - allocatedBefore;
+        long total = (long) ROWS * ROUNDS;
+        System.out.printf("%s rows=%d ns/row=%6.1f bytes/row=%6.1f%n", name, ROWS, (double) nanos / total, (double) allocated / total);
+    }
+
+    private static long consume(Object[][] rows, Function<Object[], Object> factory) {
+        long hash = 0;
+        for (Object[] row : rows) {
+            hash += System.identityHashCode(factory.apply(row)) & 1;
+        }
+        return hash;
+    }
+
+    private static Object reflective(Class<?> type, Object[] row) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() == row.length) {
+                Class<?>[] parameterTypes = constructor.getParameterTypes();
+                Object[] arguments = new Object[row.length];
+                for (int i = 0; i < row.length; i++) {
+                    arguments[i] = DefaultConversionService.getSharedInstance().convert(row[i], parameterTypes[i]);
+                }
+                return newInstance(constructor, arguments);
+            }
+        }
+        throw new IllegalArgumentException(type.getName());
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object[] arguments) {
+        try {
+            return constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 영속성 컨텍스트의 회원 수에 따른 flush 비용. 1% 만 수정하고 flush 한다.
+ * 바이트코드 보강(build.gradle hibernate.enhance) 이 적용되면 수정되지 않은 엔티티는 스냅샷 비교를 하지 않는다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class FlushCostBenchmark {
+
+    static final int[] MANAGED_SIZES = {1_000, 10_000, 50_000};
+    static final int ROUNDS = 5;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void flush() {
+        System.out.println("enhanced dirty tracking = " + SelfDirtinessTracker.class.isAssignableFrom(Member.class));
+        int created = 0;
+        for (int size : MANAGED_SIZES) {
+            List<Member> members = new ArrayList<>(size - created);
+            for (int i = created; i < size; i++) {
+                members.add(new Member("member" + i, i % 100));
+            }
+            memberRepository.insertStateless(members);
+            created = size;
+
+            //warm up
+            timedFlush();
+
+            long total = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                total += timedFlush();
+            }
+            System.out.printf("managed=%6d avg flush=%8.3fms%n", size, total / 1_000_000.0 / ROUNDS);
+        }
+    }
+
+    private long timedFlush() {
+        return transactionTemplate.execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            for (int i = 0; i < members.size(); i += 100) {
+                members.get(i).setAge(members.get(i).getAge() + 1);
+            }
+            long elapsed = BenchmarkSupport.time(em::flush);
+            status.setRollbackOnly();
+            return elapsed;
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.BlockIdOptimizer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 1 ~ N 스레드 회원 insert 처리량(member_seq + BlockIdOptimizer) 과
+ * id 할당만 떼어 낸 Hibernate PooledLoOptimizer(synchronized) 대 BlockIdOptimizer(lock-free) 비교.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class IdGenerationBenchmark {
+
+    static final int[] THREADS = {1, 2, 4, 8, 16};
+    static final int INSERTS_PER_THREAD = 500;
+    static final int MEMBERS_PER_TRANSACTION = 10;
+    static final int IDS_PER_THREAD = 1_000_000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insertThroughput() throws Exception {
+        for (int threads : THREADS) {
+            BenchmarkSupport.Result result = BenchmarkSupport.runConcurrently(threads, INSERTS_PER_THREAD, (t, i) ->
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (int n = 0; n < MEMBERS_PER_TRANSACTION; n++) {
+                            em.persist(new Member("member" + t + "_" + i, n));
+                        }
+                    }));
+            System.out.printf("insert    %s members/s=%10.1f%n", result, result.throughput() * MEMBERS_PER_TRANSACTION);
+        }
+    }
+
+    @Test
+    void optimizer() throws Exception {
+        for (int threads : THREADS) {
+            System.out.println("pooled-lo " + generate(threads, new PooledLoOptimizer(Long.class, 50)));
+            System.out.println("block     " + generate(threads, new BlockIdOptimizer(Long.class, 50)));
+        }
+    }
+
+    private static BenchmarkSupport.Result generate(int threads, Optimizer optimizer) throws InterruptedException {
+        AtomicLong sequence = new AtomicLong(1);
+        AccessCallback callback = new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class).initialize(sequence.getAndAdd(50));
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return null;
+            }
+        };
+        return BenchmarkSupport.runConcurrently(threads, 1, (t, i) -> {
+            for (int n = 0; n < IDS_PER_THREAD; n++) {
+                optimizer.generate(callback);
+            }
+        });
+    }
+}
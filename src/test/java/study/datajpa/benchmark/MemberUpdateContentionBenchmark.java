@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.OptimisticLockRetryTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 인기 회원 한 명을 여러 스레드가 동시에 수정할 때 낙관적 락(@Version + 재시도)과
+ * 비관적 락(select for update)의 처리량/꼬리 지연시간 비교.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class MemberUpdateContentionBenchmark {
+
+    static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    static final int OPS_PER_THREAD = 50;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    OptimisticLockRetryTemplate retryTemplate;
+
+    Long memberId;
+
+    @BeforeEach
+    void setUp() {
+        memberId = memberRepository.save(new Member("hotMember", 0)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void optimistic() throws Exception {
+        int expected = 0;
+        for (int threads : THREADS) {
+            BenchmarkSupport.Result result = BenchmarkSupport.runConcurrently(threads, OPS_PER_THREAD, (t, i) ->
+                    retryTemplate.executeWithoutResult(() -> {
+                        Member member = memberRepository.findById(memberId).get();
+                        member.setAge(member.getAge() + 1);
+                    }));
+            System.out.println("optimistic  " + result);
+            expected += threads * OPS_PER_THREAD - result.getFailures();
+        }
+
+        assertThat(memberRepository.findById(memberId).get().getAge()).isEqualTo(expected);
+    }
+
+    @Test
+    void pessimistic() throws Exception {
+        int expected = 0;
+        for (int threads : THREADS) {
+            BenchmarkSupport.Result result = BenchmarkSupport.runConcurrently(threads, OPS_PER_THREAD, (t, i) ->
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Member member = memberRepository.findLockByUsername("hotMember").get(0);
+                        member.setAge(member.getAge() + 1);
+                    }));
+            System.out.println("pessimistic " + result);
+            expected += threads * OPS_PER_THREAD - result.getFailures();
+        }
+
+        assertThat(memberRepository.findById(memberId).get().getAge()).isEqualTo(expected);
+    }
+}
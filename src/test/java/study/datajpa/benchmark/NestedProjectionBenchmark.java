@@ -0,0 +1,111 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedCloseProjections;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * NestedCloseProjections 조회 비교.
+ * 기존 방식(Spring Data 가 team 을 엔티티로 select 해 프록시 프로젝션으로 감쌈)과
+ * 컬럼을 줄인 findProjectionsDtoByUsername(m.username, t.name 만 select) 의 시간, 읽은 컬럼 수, 할당 바이트.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class NestedProjectionBenchmark {
+
+    static final int MEMBERS = 10_000;
+    static final int ROUNDS = 20;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void nestedProjection() {
+        Team team = teamRepository.save(new Team("teamA"));
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member", i % 100, team));
+        }
+        memberRepository.insertStateless(members);
+
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        int teamColumns = em.getMetamodel().entity(Team.class).getSingularAttributes().size();
+
+        run("team entity select", 1 + teamColumns, () -> {
+            List<Tuple> rows = em.createQuery("select m.username as username, t as team" +
+                    " from Member m left join m.team t where m.username = :username", Tuple.class)
+                    .setParameter("username", "member")
+                    .getResultList();
+            long length = 0;
+            for (Tuple row : rows) {
+                Map<String, Object> values = new HashMap<>();
+                values.put("username", row.get("username"));
+                values.put("team", row.get("team"));
+                length += projectionFactory.createProjection(NestedCloseProjections.class, values).getTeam().getName().length();
+            }
+            return length;
+        });
+        run("column pruned     ", 2, () -> {
+            long length = 0;
+            for (NestedCloseProjections result : memberRepository.findProjectionsDtoByUsername("member", NestedCloseProjections.class)) {
+                length += result.getTeam().getName().length();
+            }
+            return length;
+        });
+    }
+
+    private void run(String name, int columns, Supplier<Long> query) {
+        //warm up
+        for (int i = 0; i < 3; i++) {
+            transactionTemplate.execute(status -> query.get());
+        }
+        long allocatedBefore = allocatedBytes();
+        long nanos = BenchmarkSupport.time(() -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                transactionTemplate.execute(status -> query.get());
+            }
+        });
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%s rows=%d columns/row=%d avg=%8.3fms allocated/round=%8.1fKB%n",
+                name, MEMBERS, columns, nanos / 1_000_000.0 / ROUNDS, allocated / 1024.0 / ROUNDS);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
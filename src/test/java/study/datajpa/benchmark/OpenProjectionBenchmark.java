@@ -0,0 +1,82 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * UsernameOnly 열린 프로젝션(SpEL) / 컴파일된 프로젝션 / 닫힌 DTO 프로젝션의 조회 + getter 호출 비용.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class OpenProjectionBenchmark {
+
+    static final int MEMBERS = 10_000;
+    static final int ROUNDS = 20;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void projections() {
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member", i % 100));
+        }
+        memberRepository.insertStateless(members);
+
+        run("spel open projection", () -> {
+            long length = 0;
+            for (UsernameOnly result : memberRepository.findProjectionsByUsername("member")) {
+                length += result.getUsername().length();
+            }
+            return length;
+        });
+        run("compiled projection ", () -> {
+            long length = 0;
+            for (UsernameOnly result : memberRepository.findCompiledProjectionsByUsername("member", UsernameOnly.class)) {
+                length += result.getUsername().length();
+            }
+            return length;
+        });
+        run("closed dto          ", () -> {
+            long length = 0;
+            for (UsernameOnlyDto result : memberRepository.findProjectionsDtoByUsername("member", UsernameOnlyDto.class)) {
+                length += result.getUsername().length();
+            }
+            return length;
+        });
+    }
+
+    private void run(String name, Supplier<Long> query) {
+        //warm up
+        for (int i = 0; i < 3; i++) {
+            transactionTemplate.execute(status -> query.get());
+        }
+        long nanos = BenchmarkSupport.time(() -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                transactionTemplate.execute(status -> query.get());
+            }
+        });
+        System.out.printf("%s rows=%d avg=%8.3fms%n", name, MEMBERS, nanos / 1_000_000.0 / ROUNDS);
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSpec;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.JoinType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specification 페이징의 count 쪽 비교.
+ * 기본 count(inner join + count distinct) 에 해당하는 JPQL 과 CountOptimizingJpaRepository 의 count(세미 조인, fetch/distinct 제거)를 잰다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SpecificationCountBenchmark {
+
+    static final int MEMBERS = 300_000;
+    static final int TEAMS = 100;
+    static final int ITERATIONS = 20;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void count() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(teamRepository.save(new Team("team" + i)));
+        }
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 100, teams.get(i % TEAMS)));
+        }
+        memberRepository.insertStateless(members);
+
+        Specification<Member> fetchTeam = (root, query, builder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("team", JoinType.LEFT);
+            }
+            query.distinct(true);
+            return null;
+        };
+        Specification<Member> spec = MemberSpec.teamName("team7").and(fetchTeam);
+
+        measure("default   count", () -> transactionTemplate.execute(status -> em.createQuery(
+                "select count(distinct m) from Member m join m.team t where t.name = :name", Long.class)
+                .setParameter("name", "team7")
+                .getSingleResult()));
+        measure("optimized count", () -> memberRepository.count(spec));
+        measure("optimized page ", () -> memberRepository.findAll(spec, PageRequest.of(0, 20, Sort.by("username"))));
+    }
+
+    private static void measure(String name, Runnable runnable) {
+        //warm up
+        for (int i = 0; i < 3; i++) {
+            runnable.run();
+        }
+        long nanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            nanos += BenchmarkSupport.time(runnable);
+        }
+        System.out.printf("%s members=%d avg=%8.3fms%n", name, MEMBERS, nanos / ITERATIONS / 1_000_000.0);
+    }
+}
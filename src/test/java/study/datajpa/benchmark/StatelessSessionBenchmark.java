@@ -0,0 +1,176 @@
+package study.datajpa.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * EntityManager 경로와 StatelessSession 경로의 대량 insert / update / delete / 전체 읽기 비교.
+ * 처리량과 함께 현재 스레드가 할당한 바이트 수(영속성 컨텍스트 스냅샷/1차 캐시 비용)를 출력한다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class StatelessSessionBenchmark {
+
+    static final int MEMBERS = 50_000;
+    static final int FETCH_SIZE = 1_000;
+    static final int CHUNK_SIZE = 1_000;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insert() {
+        //warm up
+        insertWithEntityManager(1_000);
+        insertStateless(1_000);
+        memberRepository.deleteAllInBatch();
+
+        measure("entityManager insert", () -> insertWithEntityManager(MEMBERS));
+        memberRepository.deleteAllInBatch();
+        measure("stateless insert    ", () -> insertStateless(MEMBERS));
+    }
+
+    /**
+     * 둘 다 전체 회원을 읽어 나이를 바꾼다. EntityManager 는 변경 감지로, stateless 는 CHUNK_SIZE 씩 전체 컬럼 update 로 쓴다.
+     */
+    @Test
+    void update() {
+        insertStateless(MEMBERS);
+
+        //warm up
+        updateWithEntityManager();
+        updateStateless();
+
+        measure("entityManager update", this::updateWithEntityManager);
+        measure("stateless update    ", this::updateStateless);
+    }
+
+    @Test
+    void delete() {
+        //warm up
+        insertStateless(1_000);
+        deleteWithEntityManager();
+        insertStateless(1_000);
+        deleteStateless();
+
+        insertStateless(MEMBERS);
+        measure("entityManager delete", this::deleteWithEntityManager);
+        insertStateless(MEMBERS);
+        measure("stateless delete    ", this::deleteStateless);
+    }
+
+    @Test
+    void read() {
+        insertStateless(MEMBERS);
+
+        //warm up
+        readWithEntityManager();
+        memberRepository.scrollStateless(FETCH_SIZE, member -> { });
+
+        measure("entityManager read  ", this::readWithEntityManager);
+        measure("stateless read      ", () -> memberRepository.scrollStateless(FETCH_SIZE, member -> { }));
+    }
+
+    private void insertWithEntityManager(int count) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                em.persist(new Member("member" + i, i % 100));
+            }
+        });
+    }
+
+    private void insertStateless(int count) {
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        memberRepository.insertStateless(members);
+    }
+
+    private void updateWithEntityManager() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Member member : em.createQuery("select m from Member m order by m.id", Member.class).getResultList()) {
+                member.setAge(member.getAge() + 1);
+            }
+        });
+    }
+
+    private void updateStateless() {
+        List<Member> members = new ArrayList<>(MEMBERS);
+        memberRepository.scrollStateless(FETCH_SIZE, member -> {
+            member.setAge(member.getAge() + 1);
+            members.add(member);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < members.size(); from += CHUNK_SIZE) {
+                memberRepository.updateStateless(members.subList(from, Math.min(from + CHUNK_SIZE, members.size())));
+            }
+        });
+    }
+
+    private void deleteWithEntityManager() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Member member : em.createQuery("select m from Member m order by m.id", Member.class).getResultList()) {
+                em.remove(member);
+            }
+        });
+    }
+
+    private void deleteStateless() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = em.createQuery("select m.id from Member m order by m.id", Long.class).getResultList();
+            for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+                memberRepository.deleteStatelessByIds(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+            }
+        });
+    }
+
+    private void readWithEntityManager() {
+        AtomicLong ages = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Member> stream = em.createQuery("select m from Member m order by m.id", Member.class)
+                    .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                    .getResultStream()) {
+                stream.forEach(member -> ages.addAndGet(member.getAge()));
+            }
+        });
+    }
+
+    private static void measure(String name, Runnable runnable) {
+        long allocatedBefore = allocatedBytes();
+        long nanos = BenchmarkSupport.time(runnable);
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%s members=%d elapsed=%8.1fms rows/s=%10.1f allocated=%8.1fMB%n",
+                name, MEMBERS, nanos / 1_000_000.0, MEMBERS / (nanos / 1_000_000_000.0), allocated / 1024.0 / 1024.0);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 팀 크기(1 ~ 100,000명)에 따른 회원 팀 배정 비용. members 컬렉션을 초기화하지 않으므로 팀 크기와 무관해야 한다.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class TeamAssignmentBenchmark {
+
+    static final int[] TEAM_SIZES = {1, 1_000, 10_000, 100_000};
+    static final int ASSIGNMENTS = 200;
+    static final long ID_OFFSET = 1_000_000_000L;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void assignMember() {
+        long offset = ID_OFFSET;
+        for (int teamSize : TEAM_SIZES) {
+            Long teamId = createTeam("team" + teamSize, teamSize, offset);
+            offset += teamSize;
+
+            //warm up
+            assign(teamId, 20);
+
+            long nanos = assign(teamId, ASSIGNMENTS);
+            System.out.printf("teamSize=%7d avg assign=%8.2fus%n", teamSize, nanos / 1_000.0 / ASSIGNMENTS);
+        }
+    }
+
+    private long assign(Long teamId, int count) {
+        return transactionTemplate.execute(status -> {
+            Team team = em.find(Team.class, teamId);
+            long elapsed = BenchmarkSupport.time(() -> {
+                for (int i = 0; i < count; i++) {
+                    em.persist(new Member("new" + i, 0, team));
+                }
+            });
+            assertThat(Hibernate.isInitialized(team.getMembers())).isFalse();
+            status.setRollbackOnly();
+            return elapsed;
+        });
+    }
+
+    private Long createTeam(String name, int size, long idOffset) {
+        return transactionTemplate.execute(status -> {
+            Team team = new Team(name);
+            em.persist(team);
+            em.flush();
+            em.createNativeQuery("insert into member (member_id, username, age, team_id, version)" +
+                            " select x + ?, concat('m', x), 0, ?, 0 from system_range(1, ?)")
+                    .setParameter(1, idOffset)
+                    .setParameter(2, team.getId())
+                    .setParameter(3, size)
+                    .executeUpdate();
+            return team.getId();
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "datajpa.bulkhead.compartments.member-item.max-concurrent=0")
+@AutoConfigureMockMvc
+class BulkheadInterceptorTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void fullBulkheadRejectsImmediately() throws Exception {
+        mockMvc.perform(get("/members/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.bulkhead").value("member-item"))
+                .andExpect(jsonPath("$.reason").value("full"));
+
+        assertThat(meterRegistry.counter("datajpa.bulkhead.rejected", "bulkhead", "member-item", "reason", "full").count())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void otherBulkheadIsNotAffected() throws Exception {
+        mockMvc.perform(get("/members"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("datajpa.bulkhead.active").tag("bulkhead", "member-list").gauge().value())
+                .isEqualTo(0);
+    }
+}
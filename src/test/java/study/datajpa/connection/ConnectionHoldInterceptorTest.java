@@ -0,0 +1,66 @@
+package study.datajpa.connection;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConnectionHoldInterceptorTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listRendersWithoutOpenSessionInView() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, team));
+
+        //when
+        mockMvc.perform(get("/members"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("member1"))
+                .andExpect(jsonPath("$.content[0].teamname").value("teamA"));
+
+        //then
+        Timer hold = meterRegistry.get("datajpa.request.connection-hold").tag("endpoint", "/members").timer();
+        assertThat(hold.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("datajpa.request.connection-hold-ratio").tag("endpoint", "/members")
+                .summary().max()).isLessThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void connectionsOutsideRequestAreNotTracked() {
+        assertThat(ConnectionHoldRecorder.current()).isNull();
+        assertThatCode(() -> memberRepository.count()).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.QueryHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class QueryTimeoutAspectTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void remainingBudgetBecomesQueryTimeout() {
+        //given
+        RequestDeadline.start("/test", Duration.ofMillis(2500));
+
+        //when
+        Object timeout = transactionTemplate.execute(status -> {
+            memberRepository.count();
+            return em.getProperties().get(QueryHints.SPEC_HINT_TIMEOUT);
+        });
+
+        //then
+        assertThat(timeout).isIn(2000, 3000);
+    }
+
+    @Test
+    void exceededDeadlineSkipsQuery() {
+        //given
+        RequestDeadline.start("/expired", Duration.ZERO);
+
+        //when
+        assertThatThrownBy(() -> memberRepository.count())
+                .isInstanceOf(DeadlineExceededException.class);
+
+        //then
+        assertThat(meterRegistry.counter("datajpa.deadline.exceeded", "endpoint", "/expired").count()).isEqualTo(1);
+    }
+
+    @Test
+    void noDeadline() {
+        assertThat(RequestDeadline.remainingMillis()).isEmpty();
+        assertThatCode(() -> memberRepository.count()).doesNotThrowAnyException();
+    }
+}
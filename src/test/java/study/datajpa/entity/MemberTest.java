@@ -1,5 +1,6 @@
 package study.datajpa.entity;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +12,7 @@ import javax.persistence.PersistenceContext;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -78,4 +80,55 @@ class MemberTest {
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
 
-}
\ No newline at end of file
+    @Test
+    void changeTeamWithoutInitializingMembers() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        Team findTeam = em.find(Team.class, teamA.getId());
+        Member member2 = new Member("member2", 20, findTeam);
+        em.persist(member2);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member3);
+        member3.changeTeam(findTeam);
+
+        //then
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+        assertThat(findTeam.getMembers()).hasSize(3).contains(member2, member3);
+        assertThat(teamB.getMembers()).doesNotContain(member3);
+    }
+
+
+    @Test
+    void lastModifiedByUpdatedOnEnhancedEntity() {
+        //given
+        Member member = new Member("member1", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+        String before = lastModifiedBy(member.getId());
+
+        //when
+        Member findMember = em.find(Member.class, member.getId());
+        findMember.setAge(20);
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(before).isNotNull();
+        assertThat(lastModifiedBy(member.getId())).isNotNull().isNotEqualTo(before);
+    }
+
+    private String lastModifiedBy(Long memberId) {
+        return (String) em.createNativeQuery("select last_modified_by from member where member_id = ?")
+                .setParameter(1, memberId)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,168 @@
+package study.datajpa.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Import(EntityChangePublisherTest.Config.class)
+class EntityChangePublisherTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        CollectingListener collectingListener() {
+            return new CollectingListener();
+        }
+    }
+
+    static class CollectingListener implements EntityChangeListener {
+
+        final BlockingQueue<EntityChangeBatch> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onChanges(EntityChangeBatch batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onMissedChanges() {
+        }
+    }
+
+    @Autowired
+    CollectingListener listener;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void publishAfterCommit() throws Exception {
+        //when
+        Long id = transactionTemplate.execute(status -> {
+            Member member = memberRepository.save(new Member("member1", 10));
+            memberRepository.save(new Member("member2", 20));
+            memberRepository.flush();
+            member.setAge(11);
+            memberRepository.bulkAgePlus(20);
+            return member.getId();
+        });
+
+        //then
+        EntityChangeBatch batch = nextBatchWithInsert();
+        assertThat(batch.getEvents()).extracting(EntityChangeEvent::getType)
+                .containsExactly(EntityChangeEvent.Type.INSERT, EntityChangeEvent.Type.INSERT,
+                        EntityChangeEvent.Type.UPDATE, EntityChangeEvent.Type.BULK_UPDATE);
+        assertThat(batch.getEvents().get(0).getId()).isEqualTo(id);
+        assertThat(batch.getEvents().get(3).getAffectedRows()).isEqualTo(1);
+        assertThat(batch.getEvents().get(3).getParameters()).containsEntry("age", 20);
+    }
+
+    @Test
+    void noPublishOnRollback() throws Exception {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("member1", 10));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        //커밋되는 트랜잭션. 구독자는 순서대로 받으므로 이 배치 앞에 롤백된 배치가 없어야 한다.
+        Member marker = memberRepository.save(new Member("marker", 0));
+
+        //then
+        EntityChangeBatch batch = nextBatchWithInsert();
+        assertThat(batch.getEvents()).hasSize(1);
+        assertThat(batch.getEvents().get(0).getId()).isEqualTo(marker.getId());
+    }
+
+    @Test
+    void overflowMarksListenerDirtyAndResyncs() throws Exception {
+        //given 첫 배치를 처리하는 동안 멈춰 있는 구독자, 큐 1칸
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch resynced = new CountDownLatch(1);
+        AtomicInteger delivered = new AtomicInteger();
+        EntityChangeListener slow = new EntityChangeListener() {
+            @Override
+            public void onChanges(EntityChangeBatch batch) {
+                entered.countDown();
+                await(release);
+                delivered.incrementAndGet();
+            }
+
+            @Override
+            public void onMissedChanges() {
+                resynced.countDown();
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EntityChangePublisher publisher = new EntityChangePublisher(
+                new StaticListableBeanFactory(Map.<String, Object>of("slow", slow)).getBeanProvider(EntityChangeListener.class),
+                1, meterRegistry);
+        EntityChangeBatch batch = new EntityChangeBatch(List.of());
+
+        //when
+        publisher.publish(batch);
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.publish(batch);
+        publisher.publish(batch);
+        release.countDown();
+
+        //then 큐에 남아 있던 배치는 재구성으로 대신한다.
+        assertThat(resynced.await(5, TimeUnit.SECONDS)).isTrue();
+        publisher.destroy();
+        assertThat(delivered.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("datajpa.entity-change.dropped", "listener", slow.getClass().getSimpleName()).count())
+                .isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 다른 테스트의 deleteAllInBatch(트랜잭션 밖 벌크 삭제) 배치는 건너뛴다.
+     */
+    private EntityChangeBatch nextBatchWithInsert() throws InterruptedException {
+        while (true) {
+            EntityChangeBatch batch = listener.batches.poll(5, TimeUnit.SECONDS);
+            assertThat(batch).isNotNull();
+            if (batch.getEvents().stream().anyMatch(e -> e.getType() == EntityChangeEvent.Type.INSERT)) {
+                return batch;
+            }
+        }
+    }
+}
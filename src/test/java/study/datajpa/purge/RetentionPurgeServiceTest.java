@@ -0,0 +1,78 @@
+package study.datajpa.purge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.ItemRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "datajpa.purge.member-retention=0s",
+        "datajpa.purge.item-retention=0s",
+        "datajpa.purge.batch-size=2",
+        "datajpa.purge.pause=0ms"
+})
+class RetentionPurgeServiceTest {
+
+    @Autowired
+    RetentionPurgeService purgeService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        itemRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void purgeAll() {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("member" + i, 10, team));
+        }
+        itemRepository.save(new Item("A"));
+        itemRepository.save(new Item("B"));
+
+        //when
+        List<PurgeResult> results = purgeService.purgeAll();
+
+        //then
+        assertThat(results).extracting(PurgeResult::getDeleted).containsExactly(5L, 2L);
+        assertThat(results.get(0).getBatches()).isEqualTo(3);
+        assertThat(memberRepository.count()).isEqualTo(0);
+        assertThat(itemRepository.count()).isEqualTo(0);
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(0);
+    }
+
+    @Test
+    void budgetExhausted() {
+        //given
+        memberRepository.save(new Member("member1", 10));
+
+        //when
+        PurgeResult result = purgeService.purgeMembers(System.nanoTime());
+
+        //then
+        assertThat(result.isBudgetExhausted()).isTrue();
+        assertThat(memberRepository.count()).isEqualTo(1);
+    }
+}
@@ -1,21 +1,28 @@
 package study.datajpa.repository;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MultiGetResult;
+import study.datajpa.dto.TeamDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.JoinType;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -253,6 +260,26 @@ class MemberRepositoryTest {
         assertThat(members.size()).isEqualTo(2);
     }
 
+    @Test
+    void findAllByIdsOrdered() {
+        //given
+        Member memberA = memberRepository.save(new Member("memberA", 10, null));
+        Member memberB = memberRepository.save(new Member("memberB", 20, null));
+        Member memberC = memberRepository.save(new Member("memberC", 30, null));
+        em.flush();
+        em.clear();
+        Member cached = memberRepository.findById(memberB.getId()).get();
+
+        //when
+        MultiGetResult<Member> result = memberRepository.findAllByIdsOrdered(
+                List.of(memberC.getId(), -1L, memberB.getId(), memberA.getId(), memberC.getId()));
+
+        //then
+        assertThat(result.getFound()).extracting("username").containsExactly("memberC", "memberB", "memberA");
+        assertThat(result.getFound().get(1)).isSameAs(cached);
+        assertThat(result.getMissingIds()).containsExactly(-1L);
+    }
+
     @Test
     void findListByUsername() {
         //given
@@ -487,6 +514,41 @@ class MemberRepositoryTest {
         assertThat(result.size()).isEqualTo(1);
     }
 
+    @Test
+    void specPaging() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("a" + i, i, teamA));
+            em.persist(new Member("b" + i, i, teamB));
+        }
+        em.persist(new Member("noTeam", 0, null));
+
+        em.flush();
+        em.clear();
+
+        //목록용 fetch join + distinct 를 거는 spec. count 쿼리에서는 fetch 와 distinct 가 빠진다.
+        Specification<Member> fetchTeam = (root, query, builder) -> {
+            root.fetch("team", JoinType.LEFT);
+            query.distinct(true);
+            return null;
+        };
+
+        //when
+        Page<Member> page = memberRepository.findAll(MemberSpec.teamName("teamA").and(fetchTeam),
+                PageRequest.of(0, 2, Sort.by("username")));
+        long all = memberRepository.count(fetchTeam);
+
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(Member::getUsername).containsExactly("a0", "a1");
+        assertThat(page.getContent()).allMatch(member -> Hibernate.isInitialized(member.getTeam()));
+        assertThat(all).isEqualTo(11);
+    }
+
     @Test
     void queryByExample() {
         //given
@@ -539,6 +601,27 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    void compiledProjections() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 10, teamA));
+        em.persist(new Member("m2", 20, teamA));
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<UsernameOnly> spel = memberRepository.findProjectionsByUsername("m1");
+        List<UsernameOnly> compiled = memberRepository.findCompiledProjectionsByUsername("m1", UsernameOnly.class);
+
+        //then
+        assertThat(compiled).extracting(UsernameOnly::getUsername).containsExactly("m1 10");
+        assertThat(compiled).extracting(UsernameOnly::getUsername)
+                .containsExactlyElementsOf(spel.stream().map(UsernameOnly::getUsername).collect(Collectors.toList()));
+    }
+
     @Test
     void projections2() {
         //given
@@ -562,6 +645,110 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    void nestedClosedProjections() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m1", 0, null));
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<NestedCloseProjections> resultList = memberRepository.findProjectionsDtoByUsername("m1", NestedCloseProjections.class);
+        List<UsernameOnlyDto> dtos = memberRepository.findProjectionsDtoByUsername("m1", UsernameOnlyDto.class);
+
+        //then
+        assertThat(resultList).extracting(NestedCloseProjections::getUsername).containsOnly("m1");
+        assertThat(resultList).extracting(result -> result.getTeam() == null ? null : result.getTeam().getName())
+                .containsExactlyInAnyOrder("teamA", null);
+        assertThat(dtos).extracting(UsernameOnlyDto::getUsername).containsExactly("m1", "m1");
+    }
+
+    @Test
+    void compiledProjectionKeepsMemberWithoutTeam() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m1", 0, null));
+
+        em.flush();
+        em.clear();
+
+        //when target.team.name 은 left join 으로 읽는다.
+        List<UsernameAndTeamName> resultList = memberRepository.findCompiledProjectionsByUsername("m1", UsernameAndTeamName.class);
+
+        //then
+        assertThat(resultList).extracting(UsernameAndTeamName::getUsername).containsExactly("m1", "m1");
+        assertThat(resultList).extracting(UsernameAndTeamName::getTeamName).containsExactlyInAnyOrder("teamA", null);
+    }
+
+    interface UsernameAndTeamName {
+
+        String getUsername();
+
+        @Value("#{target.team.name}")
+        String getTeamName();
+    }
+
+    @Test
+    void uncompilableProjectionFallsBackToEntity() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 10, teamA));
+
+        em.flush();
+        em.clear();
+
+        //when default 메서드는 select 식으로 바꿀 수 없다.
+        List<UsernameWithAge> resultList = memberRepository.findProjectionsDtoByUsername("m1", UsernameWithAge.class);
+
+        //then
+        assertThat(resultList).extracting(UsernameWithAge::getLabel).containsExactly("m1(10)");
+    }
+
+    interface UsernameWithAge {
+
+        String getUsername();
+
+        int getAge();
+
+        default String getLabel() {
+            return getUsername() + "(" + getAge() + ")";
+        }
+    }
+
+    @Test
+    void classProjectionWithParamPath() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m1", 0, null));
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<MemberDto> dtos = memberRepository.findProjectionsDtoByUsername("m1", MemberDto.class);
+
+        //then
+        assertThat(dtos).extracting(MemberDto::getUsername).containsOnly("m1");
+        assertThat(dtos).extracting(MemberDto::getTeamname).containsExactlyInAnyOrder("teamA", null);
+    }
+
+    @Test
+    void classProjectionWithoutMatchingConstructor() {
+        //TeamDto(id, name, memberCount) 의 name, memberCount 는 Member 속성이 아니다.
+        assertThatThrownBy(() -> memberRepository.findProjectionsDtoByUsername("m1", TeamDto.class))
+                .isInstanceOfAny(IllegalArgumentException.class, InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("no constructor of " + TeamDto.class.getName());
+    }
+
     @Test
     void nativeQuery() {
         //given
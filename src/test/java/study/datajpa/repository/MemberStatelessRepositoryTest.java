@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class MemberStatelessRepositoryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamSummaryRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insertAndScroll() {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("member" + i, i, team));
+        }
+
+        //when
+        memberRepository.insertStateless(members);
+        List<String> usernames = new ArrayList<>();
+        long count = memberRepository.scrollStateless(3, member -> usernames.add(member.getUsername()));
+
+        //then
+        assertThat(members).allSatisfy(member -> {
+            assertThat(member.getId()).isNotNull();
+            assertThat(member.getCreateDate()).isNotNull();
+        });
+        assertThat(count).isEqualTo(10);
+        assertThat(usernames).containsExactlyInAnyOrder(members.stream().map(Member::getUsername).toArray(String[]::new));
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(10);
+        TeamSummary summary = teamSummaryRepository.findById(team.getId()).get();
+        assertThat(summary.getAgeSum()).isEqualTo(45);
+        assertThat(summary.getMaxAge()).isEqualTo(9);
+    }
+
+    @Test
+    void updateAndDelete() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        memberRepository.insertStateless(List.of(member1, member2));
+
+        //when
+        member1.setAge(11);
+        member1.setTeam(teamB);
+        memberRepository.updateStateless(List.of(member1));
+        int deleted = memberRepository.deleteStatelessByIds(List.of(member2.getId()));
+
+        //then
+        assertThat(deleted).isEqualTo(1);
+        Member found = memberRepository.findById(member1.getId()).get();
+        assertThat(found.getAge()).isEqualTo(11);
+        assertThat(found.getVersion()).isEqualTo(1L);
+        assertThat(memberRepository.findById(member2.getId())).isEmpty();
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(1);
+        assertThat(teamSummaryRepository.findById(teamB.getId()).get().getAgeSum()).isEqualTo(11);
+    }
+}
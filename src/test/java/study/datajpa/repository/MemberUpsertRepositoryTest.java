@@ -0,0 +1,74 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class MemberUpsertRepositoryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamSummaryRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void upsertByUsername() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Long existingId = memberRepository.save(new Member("member1", 10, teamA)).getId();
+        Member existing = memberRepository.findById(existingId).get();
+
+        //when
+        UpsertResult result = memberRepository.upsertByUsername(List.of(
+                new Member("member1", 11, teamB),
+                new Member("member2", 20, teamB),
+                new Member("member2", 21, teamB)));
+
+        //then
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+
+        Member updated = memberRepository.findById(existing.getId()).get();
+        assertThat(updated.getAge()).isEqualTo(11);
+        assertThat(updated.getVersion()).isEqualTo(existing.getVersion() + 1);
+        assertThat(updated.getCreateDate()).isEqualTo(existing.getCreateDate());
+        assertThat(updated.getLastModifiedDate()).isAfterOrEqualTo(existing.getLastModifiedDate());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> inserted = memberRepository.findListByUsername("member2");
+            assertThat(inserted).hasSize(1);
+            assertThat(inserted.get(0).getAge()).isEqualTo(21);
+            assertThat(inserted.get(0).getCreateDate()).isNotNull();
+            assertThat(inserted.get(0).getCreateBy()).isNotNull();
+        });
+
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(2);
+        assertThat(teamSummaryRepository.findById(teamB.getId()).get().getAgeSum()).isEqualTo(32);
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class UsernameBloomFilterTest {
+
+    @Autowired
+    UsernameBloomFilter usernameBloomFilter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        usernameBloomFilter.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void definiteMissSkipsQuery() {
+        //given
+        memberRepository.save(new Member("memberA", 10));
+        double misses = definiteMisses();
+
+        //when
+        assertThat(memberRepository.findOptionalByUsername("nobody")).isEmpty();
+        assertThat(memberRepository.findMemberByUsername("nobody")).isNull();
+
+        //then
+        assertThat(definiteMisses() - misses).isEqualTo(2);
+        assertThat(memberRepository.findOptionalByUsername("memberA")).isPresent();
+    }
+
+    @Test
+    void insertIsVisibleBeforeCommitAndAfterRebuild() {
+        //given
+        memberRepository.save(new Member("memberB", 10));
+
+        //then
+        assertThat(usernameBloomFilter.lookup("memberB")).isEqualTo(UsernameBloomFilter.Lookup.MAYBE);
+        usernameBloomFilter.rebuild();
+        assertThat(usernameBloomFilter.lookup("memberB")).isEqualTo(UsernameBloomFilter.Lookup.MAYBE);
+    }
+
+    @Test
+    void bulkUsernameChangeBypassesUntilRebuild() {
+        //when
+        usernameBloomFilter.onRecorded(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE, Member.class, 1, "upsertByUsername"));
+
+        //then
+        assertThat(usernameBloomFilter.lookup("nobody")).isEqualTo(UsernameBloomFilter.Lookup.BYPASS);
+        usernameBloomFilter.rebuild();
+        assertThat(usernameBloomFilter.lookup("nobody")).isEqualTo(UsernameBloomFilter.Lookup.DEFINITE_MISS);
+    }
+
+    @Test
+    void mayChangeUsername() {
+        assertThat(bulkUpdate("update Member m set m.age = m.age + 1 where m.age >= :age").mayAssign("username")).isFalse();
+        assertThat(bulkUpdate("update Member m set m.username = :name where m.id = :id").mayAssign("username")).isTrue();
+        assertThat(bulkUpdate("upsertByUsername").mayAssign("username")).isTrue();
+        assertThat(bulkUpdate(null).mayAssign("username")).isTrue();
+    }
+
+    @Test
+    void falsePositiveRate() {
+        //given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        //when
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        //then
+        assertThat(falsePositives / 10_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.005));
+    }
+
+    private double definiteMisses() {
+        return meterRegistry.counter("datajpa.username-bloom.lookups", "result", "definite-miss").count();
+    }
+
+    private static EntityChangeEvent bulkUpdate(String statement) {
+        return EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE, Member.class, 1, statement);
+    }
+}
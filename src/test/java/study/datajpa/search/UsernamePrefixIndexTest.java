@@ -0,0 +1,129 @@
+package study.datajpa.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.event.EntityChangeBatch;
+import study.datajpa.event.EntityChangeEvent;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class UsernamePrefixIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    /**
+     * 빈으로 등록된 인덱스는 비동기로 변경을 받으므로, 구독하지 않는 인스턴스로 검증한다.
+     */
+    UsernamePrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UsernamePrefixIndex(em, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rebuildAndSuggest() {
+        //given
+        memberRepository.save(new Member("apple", 10));
+        memberRepository.save(new Member("apple", 20));
+        memberRepository.save(new Member("apricot", 10));
+        memberRepository.save(new Member("banana", 10));
+
+        //when
+        index.rebuild();
+
+        //then
+        assertThat(index.suggest("ap", 10)).containsExactly("apple", "apricot");
+        assertThat(index.suggest("ap", 1)).containsExactly("apple");
+        assertThat(index.suggest("c", 10)).isEmpty();
+    }
+
+    @Test
+    void incremental() {
+        //given
+        Member apple = memberRepository.save(new Member("apple", 10));
+        index.rebuild();
+
+        //when
+        index.onChanges(new EntityChangeBatch(List.of(
+                EntityChangeEvent.of(EntityChangeEvent.Type.INSERT, Member.class, apple.getId() + 100, null, Map.of("username", "apex")),
+                EntityChangeEvent.of(EntityChangeEvent.Type.UPDATE, Member.class, apple.getId(),
+                        Map.of("username", "apple"), Map.of("username", "banana")))));
+
+        //then
+        assertThat(index.suggest("ap", 10)).containsExactly("apex");
+        assertThat(index.suggest("b", 10)).containsExactly("banana");
+    }
+
+    @Test
+    void idOnlyDeleteWithoutRebuild() {
+        //given
+        Member apple = memberRepository.save(new Member("apple", 10));
+        memberRepository.save(new Member("apricot", 10));
+        index.rebuild();
+        //DB 에서 지워도 이벤트 전까지는 인덱스에 남아 있어야 재구성하지 않았다는 게 보인다.
+        memberRepository.deleteAllInBatch();
+
+        //when
+        index.onChanges(new EntityChangeBatch(List.of(
+                EntityChangeEvent.of(EntityChangeEvent.Type.DELETE, Member.class, apple.getId()))));
+
+        //then
+        assertThat(index.suggest("ap", 10)).containsExactly("apricot");
+    }
+
+    @Test
+    void replayedChangesAreNotCountedTwice() {
+        //given
+        Member apple = memberRepository.save(new Member("apple", 10));
+        index.rebuild();
+        EntityChangeBatch rename = new EntityChangeBatch(List.of(
+                EntityChangeEvent.of(EntityChangeEvent.Type.UPDATE, Member.class, apple.getId(),
+                        Map.of("username", "apple"), Map.of("username", "banana"))));
+
+        //when
+        index.onChanges(rename);
+        index.onChanges(rename);
+
+        //then
+        assertThat(index.suggest("", 10)).containsExactly("banana");
+    }
+
+    @Test
+    void bulkUpdateWithoutUsernameDoesNotRebuild() {
+        //given
+        memberRepository.save(new Member("apple", 10));
+        index.rebuild();
+        memberRepository.save(new Member("apricot", 10));
+
+        //when
+        index.onChanges(new EntityChangeBatch(List.of(EntityChangeEvent.bulk(EntityChangeEvent.Type.BULK_UPDATE, Member.class, 2,
+                "update Member m set m.age = m.age + 1 where m.age >= :age"))));
+
+        //then
+        assertThat(index.suggest("ap", 10)).containsExactly("apple");
+    }
+}
@@ -0,0 +1,122 @@
+package study.datajpa.summary;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamSummary;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamSummaryRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class TeamSummaryServiceTest {
+
+    @Autowired
+    TeamSummaryService teamSummaryService;
+
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamSummaryRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void incremental() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        Member member3 = memberRepository.save(new Member("member3", 40, teamA));
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findById(member3.getId()).get().changeTeam(teamRepository.findById(teamB.getId()).get());
+            memberRepository.findById(member1.getId()).get().setAge(15);
+        });
+        transactionTemplate.executeWithoutResult(status -> memberRepository.bulkAgePlus(20));
+
+        //then
+        TeamSummary summaryA = teamSummaryRepository.findById(teamA.getId()).get();
+        assertThat(summaryA.getMemberCount()).isEqualTo(2);
+        assertThat(summaryA.getAgeSum()).isEqualTo(15 + 21);
+        assertThat(summaryA.getMinAge()).isEqualTo(15);
+        assertThat(summaryA.getMaxAge()).isEqualTo(21);
+        assertThat(summaryA.getAverageAge()).isEqualTo(18);
+
+        TeamSummary summaryB = teamSummaryRepository.findById(teamB.getId()).get();
+        assertThat(summaryB.getMemberCount()).isEqualTo(1);
+        assertThat(summaryB.getMinAge()).isEqualTo(41);
+        assertThat(teamSummaryService.findInconsistentTeamIds()).isEmpty();
+    }
+
+    @Test
+    void deleteMember() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+
+        //when
+        memberRepository.deleteById(member1.getId());
+
+        //then
+        TeamSummary summary = teamSummaryRepository.findById(teamA.getId()).get();
+        assertThat(summary.getMemberCount()).isEqualTo(1);
+        assertThat(summary.getMinAge()).isEqualTo(20);
+        assertThat(summary.getMaxAge()).isEqualTo(20);
+    }
+
+    @Test
+    void repairAndRebuild() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.deleteAllInBatch(); //이벤트를 거치지 않는 삭제
+
+        //when
+        assertThat(teamSummaryService.findInconsistentTeamIds()).containsExactly(teamA.getId());
+        int repaired = teamSummaryService.repair();
+
+        //then
+        assertThat(repaired).isEqualTo(1);
+        assertThat(teamSummaryService.findInconsistentTeamIds()).isEmpty();
+        assertThat(teamSummaryService.rebuild()).isEqualTo(1);
+        assertThat(teamSummaryRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+    }
+
+    @Test
+    void repairOrphanSummary() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        teamRepository.deleteAllInBatch(); //이벤트를 거치지 않는 삭제라 summary 가 남는다.
+
+        //when
+        assertThat(teamSummaryService.findInconsistentTeamIds()).containsExactly(teamA.getId());
+        int repaired = teamSummaryService.repair();
+
+        //then
+        assertThat(repaired).isEqualTo(1);
+        assertThat(teamSummaryRepository.findById(teamA.getId())).isEmpty();
+        assertThat(teamSummaryService.findInconsistentTeamIds()).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.support;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BlockIdOptimizerTest {
+
+    @Test
+    void uniqueIdsAcrossThreads() throws Exception {
+        //given
+        BlockIdOptimizer optimizer = new BlockIdOptimizer(Long.class, 50);
+        SequenceCallback sequence = new SequenceCallback(50);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    ids.add((Long) optimizer.generate(sequence));
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        //then
+        assertThat(ids).hasSize(8_000);
+        assertThat(ids.stream().mapToLong(Long::longValue).min().getAsLong()).isEqualTo(1);
+        assertThat(ids.stream().mapToLong(Long::longValue).max().getAsLong()).isEqualTo(8_000);
+        assertThat(sequence.calls.get()).isEqualTo(8_000 / 50);
+    }
+
+    /**
+     * increment 만큼 증가하는 DB 시퀀스 흉내
+     */
+    static class SequenceCallback implements AccessCallback {
+
+        final AtomicLong value = new AtomicLong(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final int increment;
+
+        SequenceCallback(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(value.getAndAdd(increment));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
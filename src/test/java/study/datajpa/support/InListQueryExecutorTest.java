@@ -0,0 +1,85 @@
+package study.datajpa.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"datajpa.in-list.chunk-size=2", "datajpa.hibernate.statistics=true"})
+class InListQueryExecutorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findByNamesChunked() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("member" + i, i));
+        }
+        List<String> names = List.of("member0", "member1", "member1", "member2", "member4", "none");
+
+        //when
+        List<Member> parallel = memberRepository.findByNamesChunked(names);
+        List<Member> inTransaction = transactionTemplate.execute(status -> memberRepository.findByNamesChunked(names));
+
+        //then
+        assertThat(parallel).extracting("username")
+                .containsExactlyInAnyOrder("member0", "member1", "member2", "member4");
+        assertThat(inTransaction).extracting("username")
+                .containsExactlyInAnyOrder("member0", "member1", "member2", "member4");
+    }
+
+    @Test
+    void paddedInListReusesQueryPlan() {
+        //given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        findByUsernameIn(List.of("a", "b", "c"));
+        long misses = statistics.getQueryPlanCacheMissCount();
+        long hits = statistics.getQueryPlanCacheHitCount();
+
+        //when 3개와 4개 모두 4개로 패딩된다.
+        findByUsernameIn(List.of("a", "b", "c", "d"));
+
+        //then
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    void empty() {
+        assertThat(memberRepository.findByNamesChunked(List.of())).isEmpty();
+    }
+
+    private void findByUsernameIn(List<String> names) {
+        transactionTemplate.execute(status -> em.createQuery("select m from Member m where m.username in :names", Member.class)
+                .setParameter("names", names)
+                .getResultList());
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class OptimisticLockRetryTemplateTest {
+
+    @Autowired
+    OptimisticLockRetryTemplate retryTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void version() {
+        //given
+        Member member = memberRepository.save(new Member("memberA", 10));
+
+        //when
+        retryTemplate.executeWithoutResult(() -> memberRepository.findById(member.getId()).get().setAge(20));
+
+        //then
+        Member findMember = memberRepository.findById(member.getId()).get();
+        assertThat(findMember.getAge()).isEqualTo(20);
+        assertThat(findMember.getVersion()).isEqualTo(member.getVersion() + 1);
+    }
+
+    @Test
+    void retryOnConflict() {
+        //given
+        Member member = memberRepository.save(new Member("memberA", 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        //when
+        retryTemplate.executeWithoutResult(() -> {
+            Member findMember = memberRepository.findById(member.getId()).get();
+            findMember.setAge(findMember.getAge() + 1);
+            if (attempts.incrementAndGet() == 1) {
+                //다른 트랜잭션이 먼저 수정한 상황
+                throw new ObjectOptimisticLockingFailureException(Member.class, member.getId());
+            }
+        });
+
+        //then
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(11);
+    }
+
+    @Test
+    void staleUpdateFails() {
+        //given
+        Member member = memberRepository.save(new Member("memberA", 10));
+        memberRepository.findById(member.getId()).ifPresent(m -> {
+            m.setAge(30);
+            memberRepository.save(m);
+        });
+
+        //when
+        member.setAge(20);
+
+        //then
+        assertThatThrownBy(() -> memberRepository.save(member))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class TeamMemberCountListenerTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamMemberCountReconciler reconciler;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void memberCount() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+
+        //when
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(member1.getId()).get().changeTeam(teamRepository.findById(teamB.getId()).get()));
+        memberRepository.deleteById(member2.getId());
+
+        //then
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rollback() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("member1", 10, teamA));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+    }
+
+    @Test
+    void reconcile() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.deleteAllInBatch(); //이벤트를 거치지 않는 삭제
+
+        //when
+        int repaired = reconciler.reconcile();
+
+        //then
+        assertThat(repaired).isEqualTo(1);
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamSummaryRepository;
+import study.datajpa.summary.TeamSummaryService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "datajpa.write-behind.flush-interval=1h")
+class MemberAgeWriteBehindBufferTest {
+
+    @Autowired
+    MemberAgeWriteBehindBuffer buffer;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+
+    @Autowired
+    TeamSummaryService teamSummaryService;
+
+    @AfterEach
+    void tearDown() {
+        buffer.flush();
+        memberRepository.deleteAllInBatch();
+        teamSummaryRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void coalesceIncrements() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        Member member1 = memberRepository.save(new Member("member1", 10, team));
+        Member member2 = memberRepository.save(new Member("member2", 20, team));
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    buffer.increment(member1.getId(), 1);
+                    buffer.increment(member2.getId(), -1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        int updated = buffer.flush();
+
+        //then
+        assertThat(updated).isEqualTo(2);
+        Member found1 = memberRepository.findById(member1.getId()).get();
+        assertThat(found1.getAge()).isEqualTo(4_010);
+        assertThat(found1.getVersion()).isEqualTo(member1.getVersion() + 1);
+        assertThat(memberRepository.findById(member2.getId()).get().getAge()).isEqualTo(20 - 4_000);
+        assertThat(teamSummaryService.findInconsistentTeamIds()).isEmpty();
+        assertThat(buffer.flush()).isEqualTo(0);
+    }
+}